@@ -0,0 +1,76 @@
+package raycaster.engine;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import raycaster.models.CameraPath;
+import raycaster.models.Config;
+import raycaster.models.Map;
+import raycaster.models.Player;
+
+/**
+ * Full frame render along the default camera path. The subclasses choose
+ * the parameter matrix.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public abstract class AbstractFrameRenderBenchmark {
+
+    private static final int PATH_FRAMES = 120;
+
+    private final Map map = new Map();
+    private final Player player = new Player(0, 0, 0);
+    private final CameraPath cameraPath = CameraPath.defaultPath();
+    private Config config;
+    private RenderWorkerPool renderWorkerPool;
+    private Renderer renderer;
+    private int frame = 0;
+
+    /**
+     * @return width x height, e.g. 640x480
+     */
+    protected abstract String resolution();
+
+    protected abstract double fov();
+
+    protected abstract int cores();
+
+    protected abstract Config.Traversal traversal();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String[] size = resolution().split("x");
+        int width = Integer.parseInt(size[0]);
+        int height = Integer.parseInt(size[1]);
+        config = new Config(fov(), true, false);
+        config.setTraversal(traversal());
+        // every frame is measured in full
+        config.setTemporalReuseOn(false);
+        renderWorkerPool = new RenderWorkerPool(cores());
+        renderer = new Renderer(new FrameBuffer(width, height), width, height, BenchmarkAssets.textureAtlas(),
+                BenchmarkAssets.background(), renderWorkerPool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        renderWorkerPool.shutdown();
+    }
+
+    @Benchmark
+    public int renderFrame() {
+        cameraPath.applyPose(frame, PATH_FRAMES, player);
+        frame = (frame + 1) % PATH_FRAMES;
+        renderer.render(map, player, config, null);
+        return renderer.getFrameBuffer().getPixels()[0];
+    }
+}
@@ -0,0 +1,23 @@
+package raycaster.engine;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+/**
+ * Textures shared by the benchmarks, loaded from the project directory.
+ */
+final class BenchmarkAssets {
+
+    private BenchmarkAssets() {
+    }
+
+    static TextureAtlas textureAtlas() throws IOException {
+        return TextureAtlas.load(new File("static/textures.png"));
+    }
+
+    static BufferedImage background() throws IOException {
+        return ImageIO.read(new File("static/background.png"));
+    }
+}
@@ -0,0 +1,43 @@
+package raycaster.engine;
+
+import org.openjdk.jmh.annotations.Param;
+import raycaster.models.Config;
+
+/**
+ * Full frame render at one resolution and FOV, single and multi threaded,
+ * small enough to run for regression tracking.
+ */
+public class FrameRenderBenchmark extends AbstractFrameRenderBenchmark {
+
+    @Param({"640x480"})
+    public String resolution;
+
+    @Param({"90"})
+    public double fov;
+
+    @Param({"1", "4"})
+    public int cores;
+
+    @Param({"MARCHING", "DDA", "FIXED_POINT"})
+    public Config.Traversal traversal;
+
+    @Override
+    protected String resolution() {
+        return resolution;
+    }
+
+    @Override
+    protected double fov() {
+        return fov;
+    }
+
+    @Override
+    protected int cores() {
+        return cores;
+    }
+
+    @Override
+    protected Config.Traversal traversal() {
+        return traversal;
+    }
+}
@@ -0,0 +1,43 @@
+package raycaster.engine;
+
+import org.openjdk.jmh.annotations.Param;
+import raycaster.models.Config;
+
+/**
+ * Full frame render over all resolutions, FOVs and core counts. Takes hours,
+ * so it runs only with -PjmhSweep.
+ */
+public class FrameRenderSweepBenchmark extends AbstractFrameRenderBenchmark {
+
+    @Param({"320x240", "640x480", "1280x720"})
+    public String resolution;
+
+    @Param({"60", "90", "120"})
+    public double fov;
+
+    @Param({"1", "2", "4", "8"})
+    public int cores;
+
+    @Param({"MARCHING", "DDA", "FIXED_POINT"})
+    public Config.Traversal traversal;
+
+    @Override
+    protected String resolution() {
+        return resolution;
+    }
+
+    @Override
+    protected double fov() {
+        return fov;
+    }
+
+    @Override
+    protected int cores() {
+        return cores;
+    }
+
+    @Override
+    protected Config.Traversal traversal() {
+        return traversal;
+    }
+}
@@ -0,0 +1,66 @@
+package raycaster.engine;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import raycaster.models.Config;
+import raycaster.models.Map;
+
+/**
+ * Casting the ray of a single screen column on the built-in map.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RayCastingBenchmark {
+
+    @Param({"MARCHING", "DDA", "FIXED_POINT"})
+    public Config.Traversal traversal;
+
+    /**
+     * Pose as "x y angle", a short ray into a corner and a long ray down a corridor
+     */
+    @Param({"3.5 3.5 45", "3.5 3.5 90"})
+    public String pose;
+
+    private final Map map = new Map();
+    private final RayTables rayTables = new RayTables();
+    private final HitBuffer walls = new HitBuffer(64);
+    private final HitBuffer objects = new HitBuffer(64);
+    private RayTraversal rayTraversal;
+    private double originX;
+    private double originY;
+
+    @Setup
+    public void setUp() {
+        String[] values = pose.split(" ");
+        originX = Double.parseDouble(values[0]);
+        originY = Double.parseDouble(values[1]);
+        rayTables.update(90, 640, Double.parseDouble(values[2]));
+        if (traversal == Config.Traversal.DDA) {
+            rayTraversal = new DdaTraversal();
+        } else if (traversal == Config.Traversal.FIXED_POINT) {
+            rayTraversal = new FixedPointTraversal();
+            rayTables.updateFixedPoint();
+        } else {
+            rayTraversal = new MarchingTraversal();
+        }
+    }
+
+    @Benchmark
+    public void castColumn(Blackhole blackhole) {
+        walls.clear();
+        objects.clear();
+        rayTraversal.castColumn(map, originX, originY, rayTables, 320, true, walls, objects, null);
+        blackhole.consume(walls.size());
+        blackhole.consume(objects.size());
+    }
+}
@@ -0,0 +1,59 @@
+package raycaster.engine;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Texturing one wall column and one transparent object column.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TextureFillBenchmark {
+
+    /**
+     * Distance of the hit, from a wall filling the whole column to a far one
+     */
+    @Param({"0.5", "1.0", "3.0", "10.0"})
+    public double distance;
+
+    private final HitBuffer hits = new HitBuffer(1);
+    private RenderWorkerPool renderWorkerPool;
+    private Renderer renderer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        renderWorkerPool = new RenderWorkerPool(1);
+        renderer = new Renderer(new FrameBuffer(640, 480), 640, 480, BenchmarkAssets.textureAtlas(),
+                null, renderWorkerPool);
+        hits.add(distance, 2 * TextureAtlas.TEXTURE_SIZE + 17);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        renderWorkerPool.shutdown();
+    }
+
+    @Benchmark
+    public int wallColumn() {
+        renderer.drawFromZBufferWall(hits, 320, 0);
+        return renderer.getFrameBuffer().getPixels()[240 * 640 + 320];
+    }
+
+    @Benchmark
+    public int objectColumn() {
+        renderer.drawFromZBufferObject(hits, 320, 0);
+        return renderer.getFrameBuffer().getPixels()[240 * 640 + 320];
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster;
+
+import java.awt.Canvas;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.GraphicsEnvironment;
+import java.awt.Toolkit;
+import java.awt.image.BufferStrategy;
+import java.awt.image.BufferedImage;
+
+import raycaster.engine.FrameBuffer;
+
+/**
+ * Active rendering: the game loop shows every frame itself on a canvas with a
+ * double or triple buffered {@link BufferStrategy}, instead of asking Swing
+ * to repaint and waiting for the event dispatch thread. The buffers are
+ * allocated once, when the canvas is first shown.
+ *
+ * @author Pavel Vavruska
+ */
+public class CanvasPresenter {
+
+    private final Canvas canvas;
+    private final int buffers;
+    private BufferStrategy bufferStrategy;
+    // set when the window system asked for a repaint, the next frame is shown even if it did not change
+    private volatile boolean damaged = true;
+
+    /**
+     * @param buffers 2 for double buffering, 3 for triple buffering
+     */
+    public CanvasPresenter(int width, int height, int buffers) {
+        if (buffers < 2 || buffers > 3) {
+            throw new IllegalArgumentException("Buffer strategy needs 2 or 3 buffers: " + buffers);
+        }
+        this.buffers = buffers;
+        canvas = new Canvas() {
+            @Override
+            public void paint(Graphics g) {
+                damaged = true;
+            }
+
+            @Override
+            public void update(Graphics g) {
+                // no clearing, the next frame covers the whole canvas
+                damaged = true;
+            }
+        };
+        canvas.setPreferredSize(new Dimension(width, height));
+        canvas.setFocusable(false);
+    }
+
+    /**
+     * @return frame buffer whose image has the pixel layout of the screen when
+     *         that is TYPE_INT_RGB, so it is drawn without a conversion
+     */
+    public static FrameBuffer createFrameBuffer(int width, int height) {
+        if (!GraphicsEnvironment.isHeadless()) {
+            BufferedImage image = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDefaultConfiguration().createCompatibleImage(width, height);
+            if (image.getType() == BufferedImage.TYPE_INT_RGB) {
+                return new FrameBuffer(image);
+            }
+        }
+        return new FrameBuffer(width, height);
+    }
+
+    /**
+     * Shows the image, called on the game loop thread.
+     *
+     * @return false when the canvas is not on the screen yet
+     */
+    public boolean present(BufferedImage image) {
+        if (bufferStrategy == null) {
+            if (!canvas.isDisplayable()) {
+                return false;
+            }
+            canvas.createBufferStrategy(buffers);
+            bufferStrategy = canvas.getBufferStrategy();
+        }
+        damaged = false;
+        // the back buffers may be lost, e.g. when the display mode changes
+        do {
+            do {
+                Graphics graphics = bufferStrategy.getDrawGraphics();
+                try {
+                    graphics.drawImage(image, 0, 0, null);
+                } finally {
+                    graphics.dispose();
+                }
+            } while (bufferStrategy.contentsRestored());
+            bufferStrategy.show();
+        } while (bufferStrategy.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+        return true;
+    }
+
+    /**
+     * @return true when the shown frame was damaged and has to be presented again
+     */
+    public boolean isDamaged() {
+        return damaged;
+    }
+
+    public Canvas getCanvas() {
+        return canvas;
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster;
+
+import java.util.concurrent.locks.LockSupport;
+
+import raycaster.models.Config;
+
+/**
+ * Game loop with a fixed simulation rate. Frames are rendered between the
+ * ticks with the fraction of the next tick that has already elapsed, so the
+ * game speed does not depend on the frame rate. With the FPS limiter on, the
+ * loop sleeps until the next frame is due instead of rendering right away.
+ * When the game has nothing new to draw, the loop sleeps until the next tick.
+ *
+ * @author Pavel Vavruska
+ */
+public class GameLoop implements Runnable {
+
+    /**
+     * Simulation and rendering callbacks, both called on the loop thread.
+     */
+    public interface Game {
+
+        void tick();
+
+        /**
+         * @param alpha fraction of the next tick that has elapsed, 0 to 1
+         * @return false when the last frame is still up to date and nothing was drawn
+         */
+        boolean render(double alpha);
+    }
+
+    // ticks simulated at most per frame, a slow frame slows the game down instead of stalling it
+    private static final int MAX_TICKS_PER_FRAME = 5;
+
+    private final Game game;
+    private final Config config;
+    private final long tickNanos;
+    private volatile boolean running;
+    private Thread thread;
+
+    public GameLoop(Game game, Config config) {
+        if (config.getTickRate() < 1) {
+            throw new IllegalArgumentException("Tick rate must be positive: " + config.getTickRate());
+        }
+        this.game = game;
+        this.config = config;
+        this.tickNanos = 1_000_000_000L / config.getTickRate();
+    }
+
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this, "game-loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        long previousTime = System.nanoTime();
+        long lag = 0L;
+        long nextFrameTime = previousTime;
+
+        while (running) {
+            long now = System.nanoTime();
+            lag += now - previousTime;
+            previousTime = now;
+
+            int ticks = 0;
+            while (lag >= tickNanos) {
+                if (ticks == MAX_TICKS_PER_FRAME) {
+                    lag = 0L;
+                    break;
+                }
+                game.tick();
+                lag -= tickNanos;
+                ticks++;
+            }
+
+            boolean drawn = game.render((double) lag / tickNanos);
+
+            if (!drawn) {
+                // only a tick can change what is on the screen
+                nextFrameTime = previousTime + tickNanos - lag;
+                sleepUntil(nextFrameTime);
+            } else if (config.isFpsLimiterOn() && config.getMaxFps() > 0) {
+                // a late frame moves the schedule, the following frames are not rushed to catch up
+                nextFrameTime = Math.max(nextFrameTime + 1_000_000_000L / config.getMaxFps(), System.nanoTime());
+                sleepUntil(nextFrameTime);
+            } else {
+                nextFrameTime = System.nanoTime();
+                Thread.yield();
+            }
+        }
+    }
+
+    private void sleepUntil(long deadline) {
+        long remaining;
+        while (running && (remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, remaining);
+        }
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public long getTickNanos() {
+        return tickNanos;
+    }
+}
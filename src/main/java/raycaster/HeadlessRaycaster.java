@@ -0,0 +1,413 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import javax.imageio.ImageIO;
+
+import raycaster.engine.ColumnShaders;
+import raycaster.engine.FrameBuffer;
+import raycaster.engine.RenderServer;
+import raycaster.engine.RenderSession;
+import raycaster.engine.RenderWorkerPool;
+import raycaster.engine.ScaledRenderer;
+import raycaster.engine.TextureAtlas;
+import raycaster.input.Controls;
+import raycaster.input.InputReplay;
+import raycaster.metrics.FrameStage;
+import raycaster.metrics.FrameStats;
+import raycaster.metrics.StageTimings;
+import raycaster.models.CameraPath;
+import raycaster.models.Config;
+import raycaster.models.EntityGrid;
+import raycaster.models.Map;
+import raycaster.models.Player;
+import raycaster.models.PotentiallyVisibleSet;
+
+/**
+ * Renders a camera path offscreen, without any display. Frames can be written
+ * as PNG files or as a raw ARGB stream, throughput is reported at the end.
+ *
+ * @author Pavel Vavruska
+ */
+public class HeadlessRaycaster {
+
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: HeadlessRaycaster [options]",
+            "  --frames N                  number of frames to render (default 300)",
+            "  --width W --height H        view size (default 640 x 480)",
+            "  --fov DEGREES               field of view (default 90)",
+            "  --threads N                 render threads (default number of cores)",
+            "  --traversal ENGINE          ray traversal MARCHING, DDA or FIXED_POINT (default MARCHING)",
+            "  --no-perspective-correction turn off perspective correction",
+            "  --no-mipmapping             sample far walls from the full size textures",
+            "  --no-temporal-reuse         render every frame in full, even when the camera did not move",
+            "  --floor-casting             textured floor and ceiling instead of the background image",
+            "  --budget MS                 dynamic resolution keeping the render time per frame within MS",
+            "  --map FILE                  binary or text map instead of the built-in one",
+            "  --entities N                scatter N entities over the empty tiles of the map",
+            "  --pvs                       cull entities with the potentially visible set saved next to the map",
+            "  --path FILE                 camera path, one \"x y angle\" pose per line",
+            "  --replay FILE               replay recorded input instead, one frame per tick",
+            "  --sessions N[,N...]         render N cameras at once on one shared pool and report the aggregate FPS",
+            "  --warmup N                  untimed session frames before every session count is measured (default 1000)",
+            "  --png DIR                   write every frame as DIR/frame-NNNNN.png",
+            "  --raw FILE                  write frames as a raw big-endian ARGB stream, - for stdout");
+
+    private int frames = 300;
+    private int width = 640;
+    private int height = 480;
+    private Config config = new Config(90, true, false);
+    private CameraPath cameraPath = CameraPath.defaultPath();
+    private InputReplay inputReplay;
+    private Map map = new Map();
+    private File mapFile;
+    private int entities;
+    private boolean pvsOn;
+    private int[] sessionCounts;
+    private int warmupFrames = 1000;
+    private File pngDirectory;
+    private String rawOutput;
+
+    private void parse(String[] args) throws IOException {
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            if (option.equals("--no-perspective-correction")) {
+                config.setPerspectiveCorrectionOn(false);
+                continue;
+            }
+            if (option.equals("--no-mipmapping")) {
+                config.setMipmappingOn(false);
+                continue;
+            }
+            if (option.equals("--no-temporal-reuse")) {
+                config.setTemporalReuseOn(false);
+                continue;
+            }
+            if (option.equals("--floor-casting")) {
+                config.setFloorCastingOn(true);
+                continue;
+            }
+            if (option.equals("--pvs")) {
+                pvsOn = true;
+                continue;
+            }
+            if (option.equals("--help") || option.equals("-h")) {
+                throw new IllegalArgumentException("");
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value of " + option);
+            }
+            String value = args[++i];
+            switch (option) {
+                case "--frames":
+                    frames = Integer.parseInt(value);
+                    break;
+                case "--width":
+                    width = Integer.parseInt(value);
+                    break;
+                case "--height":
+                    height = Integer.parseInt(value);
+                    break;
+                case "--fov":
+                    config.setFov(Double.parseDouble(value));
+                    break;
+                case "--threads":
+                    config.setRenderThreads(Integer.parseInt(value));
+                    break;
+                case "--traversal":
+                    config.setTraversal(Config.Traversal.valueOf(value.toUpperCase()));
+                    break;
+                case "--budget":
+                    config.setDynamicResolutionOn(true);
+                    config.setFrameBudgetMillis(Double.parseDouble(value));
+                    break;
+                case "--map":
+                    mapFile = new File(value);
+                    map = Map.load(mapFile);
+                    break;
+                case "--entities":
+                    entities = Integer.parseInt(value);
+                    break;
+                case "--path":
+                    cameraPath = CameraPath.load(new File(value));
+                    break;
+                case "--replay":
+                    inputReplay = new InputReplay(new File(value));
+                    break;
+                case "--warmup":
+                    warmupFrames = Integer.parseInt(value);
+                    if (warmupFrames < 0) {
+                        throw new IllegalArgumentException("Warm-up frames must not be negative");
+                    }
+                    break;
+                case "--sessions":
+                    String[] counts = value.split(",");
+                    sessionCounts = new int[counts.length];
+                    for (int count = 0; count < counts.length; count++) {
+                        sessionCounts[count] = Integer.parseInt(counts[count].trim());
+                        if (sessionCounts[count] < 1) {
+                            throw new IllegalArgumentException("Session count must be positive");
+                        }
+                    }
+                    break;
+                case "--png":
+                    pngDirectory = new File(value);
+                    break;
+                case "--raw":
+                    rawOutput = value;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + option);
+            }
+        }
+        if (inputReplay != null) {
+            frames = (int) Math.min(Integer.MAX_VALUE, inputReplay.getTicks());
+        }
+        if (frames < 1 || width < 1 || height < 1) {
+            throw new IllegalArgumentException("Frames, width and height must be positive");
+        }
+        if (sessionCounts != null && (inputReplay != null || pngDirectory != null || rawOutput != null
+                || config.isDynamicResolutionOn())) {
+            throw new IllegalArgumentException("--sessions follows the camera path and cannot be combined with "
+                    + "--replay, --png, --raw or --budget");
+        }
+    }
+
+    private void run() throws IOException {
+        boolean rawToStdout = "-".equals(rawOutput);
+        PrintStream report = rawToStdout ? System.err : System.out;
+
+        TextureAtlas textureAtlas = TextureAtlas.load(new File("static/textures.png"));
+        BufferedImage imgBackground = null;
+        try {
+            imgBackground = ImageIO.read(new File("static/background.png"));
+        } catch (IOException e) {
+            report.println("Error while loading background texture file.");
+        }
+
+        if (sessionCounts != null) {
+            runSessions(report, textureAtlas, imgBackground);
+            return;
+        }
+
+        if (pngDirectory != null && !pngDirectory.isDirectory() && !pngDirectory.mkdirs()) {
+            throw new IOException("Cannot create directory " + pngDirectory);
+        }
+        OutputStream raw = null;
+        if (rawOutput != null) {
+            raw = new BufferedOutputStream(rawToStdout ? System.out : new FileOutputStream(rawOutput), 1 << 16);
+        }
+        byte[] rawRow = new byte[width * 4];
+
+        FrameBuffer frameBuffer = new FrameBuffer(width, height);
+        RenderWorkerPool renderWorkerPool = new RenderWorkerPool(config.getRenderThreads());
+        ScaledRenderer renderer = new ScaledRenderer(frameBuffer, width, height, textureAtlas, imgBackground,
+                renderWorkerPool);
+        FrameStats frameStats = new FrameStats(renderWorkerPool.getWorkerCount());
+        renderer.setFrameStats(frameStats);
+        if (entities > 0) {
+            renderer.setEntityGrid(EntityGrid.scatter(map, entities, 42L));
+        }
+        if (pvsOn) {
+            PotentiallyVisibleSet pvs = (mapFile != null) ? PotentiallyVisibleSet.loadIfPresent(map, mapFile) : null;
+            if (pvs == null) {
+                // built before the first frame, so the time is reported apart from the frame times
+                long buildStartTime = System.nanoTime();
+                pvs = PotentiallyVisibleSet.build(map);
+                report.println(String.format("Built potentially visible set of %dx%d tile cells in %d ms",
+                        pvs.getCellSize(), pvs.getCellSize(), (System.nanoTime() - buildStartTime) / 1000000L));
+                if (mapFile != null) {
+                    pvs.save(PotentiallyVisibleSet.fileFor(mapFile));
+                }
+            }
+            renderer.setPotentiallyVisibleSet(pvs);
+        }
+        Player player = new Player(0, 0, 0);
+        char[] tickKeys = new char[256];
+        if (inputReplay != null) {
+            inputReplay.applyInitialState(player, config);
+        }
+
+        long[] frameNanos = new long[frames];
+        long renderNanos = 0L;
+        double scaleSum = 0D;
+        long startTime = System.nanoTime();
+        try {
+            for (int frame = 0; frame < frames; frame++) {
+                if (inputReplay != null) {
+                    int keyCount = inputReplay.nextTick(tickKeys);
+                    for (int key = 0; key < keyCount; key++) {
+                        Controls.apply(tickKeys[key], player, config);
+                    }
+                    player.tick(map);
+                } else {
+                    cameraPath.applyPose(frame, frames, player);
+                }
+
+                long frameStartTime = System.nanoTime();
+                renderer.render(map, player, config, null);
+                scaleSum += renderer.getScale();
+                frameNanos[frame] = System.nanoTime() - frameStartTime;
+                renderNanos += frameNanos[frame];
+
+                if (pngDirectory != null) {
+                    ImageIO.write(frameBuffer.getImage(), "png",
+                            new File(pngDirectory, String.format("frame-%05d.png", frame)));
+                }
+                if (raw != null) {
+                    writeRaw(frameBuffer, raw, rawRow);
+                }
+            }
+        } finally {
+            renderWorkerPool.shutdown();
+            if (raw != null) {
+                raw.close();
+            }
+        }
+        long totalNanos = System.nanoTime() - startTime;
+
+        report.println(String.format("Rendered %d frames of %dx%d on %d threads (%s, %s shading)",
+                frames, width, height, config.getRenderThreads(), config.getTraversal(), ColumnShaders.get()));
+        report.println(String.format("Render: %.1f ms, %.2f FPS", renderNanos / 1e6, frames / (renderNanos / 1e9)));
+        report.println(String.format("Total:  %.1f ms, %.2f FPS", totalNanos / 1e6, frames / (totalNanos / 1e9)));
+        if (config.isDynamicResolutionOn()) {
+            report.println(String.format("Resolution: %.0f %% on average for a budget of %.1f ms",
+                    100 * scaleSum / frames, config.getFrameBudgetMillis()));
+        }
+        Arrays.sort(frameNanos);
+        report.println(String.format("Frame time: p50 %.3f ms, p99 %.3f ms, max %.3f ms",
+                frameNanos[(frames - 1) / 2] / 1e6, frameNanos[(int) ((frames - 1) * 0.99)] / 1e6,
+                frameNanos[frames - 1] / 1e6));
+        for (FrameStage stage : new FrameStage[] {FrameStage.BACKGROUND, FrameStage.RAY_CAST,
+                FrameStage.TEXTURE_FILL, FrameStage.SPRITES, FrameStage.WORKER_BUSY, FrameStage.WORKER_IDLE}) {
+            for (int worker = 0; worker < (stage.isPerWorker() ? frameStats.getWorkerCount() : 1); worker++) {
+                StageTimings timings = frameStats.get(stage, worker);
+                report.println(String.format("  %-12s %s p50 %.3f ms, p99 %.3f ms, max %.3f ms", stage,
+                        stage.isPerWorker() ? "worker " + worker : "        ",
+                        timings.getP50Millis(), timings.getP99Millis(), timings.getMaxMillis()));
+            }
+        }
+    }
+
+    /**
+     * Renders the camera path for every session count, the cameras are spread
+     * evenly along the path. Only the frames after the warm-up are timed.
+     */
+    private void runSessions(PrintStream report, TextureAtlas textureAtlas, BufferedImage imgBackground)
+            throws IOException {
+        RenderWorkerPool renderWorkerPool = new RenderWorkerPool(config.getRenderThreads());
+        EntityGrid entityGrid = (entities > 0) ? EntityGrid.scatter(map, entities, 42L) : null;
+        report.println(String.format("Rendering %d frames of %dx%d per session after %d warm-up session frames on %d threads "
+                        + "(%s, %s shading)", frames, width, height, warmupFrames, config.getRenderThreads(),
+                config.getTraversal(), ColumnShaders.get()));
+        try {
+            for (int sessionCount : sessionCounts) {
+                RenderServer renderServer = new RenderServer(map, textureAtlas, imgBackground, renderWorkerPool);
+                renderServer.setEntityGrid(entityGrid);
+                RenderSession[] sessions = new RenderSession[sessionCount];
+                for (int session = 0; session < sessionCount; session++) {
+                    Config sessionConfig = new Config(config.getFov(), config.isPerspectiveCorrectionOn(), false);
+                    sessionConfig.setTraversal(config.getTraversal());
+                    sessionConfig.setFloorCastingOn(config.isFloorCastingOn());
+                    sessionConfig.setMipmappingOn(config.isMipmappingOn());
+                    sessionConfig.setTemporalReuseOn(config.isTemporalReuseOn());
+                    sessions[session] = renderServer.openSession(new Player(0, 0, 0), sessionConfig, width, height);
+                }
+
+                // the JIT compiles the renderer during the first session frames, a server frame renders one of each
+                int warmupServerFrames = (warmupFrames + sessionCount - 1) / sessionCount;
+                long[] frameNanos = new long[frames];
+                long renderNanos = 0L;
+                for (int frame = -warmupServerFrames; frame < frames; frame++) {
+                    for (int session = 0; session < sessionCount; session++) {
+                        int pathFrame = (int) Math.floorMod(frame + (long) session * frames / sessionCount, frames);
+                        cameraPath.applyPose(pathFrame, frames, sessions[session].getPlayer());
+                    }
+                    long frameStartTime = System.nanoTime();
+                    renderServer.renderFrame();
+                    if (frame >= 0) {
+                        frameNanos[frame] = System.nanoTime() - frameStartTime;
+                        renderNanos += frameNanos[frame];
+                    }
+                }
+
+                Arrays.sort(frameNanos);
+                double aggregateFps = (double) frames * sessionCount / (renderNanos / 1e9);
+                report.println(String.format("%4d sessions: %.2f FPS aggregate, %.2f FPS per session, "
+                                + "server frame p50 %.3f ms, p99 %.3f ms", sessionCount, aggregateFps,
+                        aggregateFps / sessionCount, frameNanos[(frames - 1) / 2] / 1e6,
+                        frameNanos[(int) ((frames - 1) * 0.99)] / 1e6));
+            }
+        } finally {
+            renderWorkerPool.shutdown();
+        }
+    }
+
+    private static void writeRaw(FrameBuffer frameBuffer, OutputStream raw, byte[] row) throws IOException {
+        int[] pixels = frameBuffer.getPixels();
+        int width = frameBuffer.getWidth();
+        for (int y = 0; y < frameBuffer.getHeight(); y++) {
+            for (int x = 0, index = y * width; x < width; x++, index++) {
+                int argb = pixels[index] | 0xFF000000;
+                row[x * 4] = (byte) (argb >>> 24);
+                row[x * 4 + 1] = (byte) (argb >>> 16);
+                row[x * 4 + 2] = (byte) (argb >>> 8);
+                row[x * 4 + 3] = (byte) argb;
+            }
+            raw.write(row, 0, width * 4);
+        }
+    }
+
+    /**
+     * @param args the command line arguments, see {@link #USAGE}
+     */
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        HeadlessRaycaster headlessRaycaster = new HeadlessRaycaster();
+        try {
+            headlessRaycaster.parse(args);
+        } catch (IllegalArgumentException | IOException e) {
+            if (e.getMessage() != null && !e.getMessage().isEmpty()) {
+                System.err.println(e.getMessage());
+            }
+            System.err.println(USAGE);
+            System.exit(1);
+            return;
+        }
+        try {
+            headlessRaycaster.run();
+        } catch (IOException e) {
+            System.err.println("Headless rendering failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster;
+
+import java.io.File;
+import java.io.IOException;
+
+import raycaster.models.Map;
+import raycaster.models.PotentiallyVisibleSet;
+
+/**
+ * Converts a text map, or the built-in map, to the memory-mapped binary format.
+ *
+ * @author Pavel Vavruska
+ */
+public class MapConverter {
+
+    /**
+     * @param args --pvs to also build the potentially visible set, then the text map and binary output
+     * file, or just the output file for the built-in map
+     */
+    public static void main(String[] args) {
+        boolean pvsOn = args.length > 0 && args[0].equals("--pvs");
+        int first = pvsOn ? 1 : 0;
+        int count = args.length - first;
+        if (count < 1 || count > 2) {
+            System.out.println("Usage: MapConverter [--pvs] [input.txt] output.map");
+            System.exit(1);
+        }
+        try {
+            Map map = (count == 2) ? Map.importText(new File(args[first])) : new Map();
+            File output = new File(args[args.length - 1]);
+            map.save(output);
+            System.out.println(String.format("Wrote %dx%d map with %d byte tiles to %s",
+                    map.getSizeX(), map.getSizeY(), map.getTileBytes(), output));
+            if (pvsOn) {
+                long buildStartTime = System.nanoTime();
+                PotentiallyVisibleSet pvs = PotentiallyVisibleSet.build(map);
+                long buildMillis = (System.nanoTime() - buildStartTime) / 1000000L;
+                File pvsFile = PotentiallyVisibleSet.fileFor(output);
+                pvs.save(pvsFile);
+                System.out.println(String.format("Wrote potentially visible set of %dx%d tile cells to %s, built in %d ms",
+                        pvs.getCellSize(), pvs.getCellSize(), pvsFile, buildMillis));
+            }
+        } catch (IOException e) {
+            System.out.println("Error while converting map: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
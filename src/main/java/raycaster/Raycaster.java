@@ -32,16 +32,28 @@ import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
-import java.util.Collections;
-import java.util.LinkedList;
-import java.util.TreeMap;
 import javax.imageio.ImageIO;
+import javax.management.JMException;
 import javax.swing.JFrame;
 import javax.swing.JPanel;
 
+import raycaster.engine.FrameBuffer;
+import raycaster.engine.RayTrace;
+import raycaster.engine.RenderWorkerPool;
+import raycaster.engine.ScaledRenderer;
+import raycaster.engine.TextureAtlas;
+import raycaster.input.Controls;
+import raycaster.input.InputQueue;
+import raycaster.input.InputRecorder;
+import raycaster.input.InputReplay;
+import raycaster.metrics.FrameStage;
+import raycaster.metrics.FrameStats;
+import raycaster.metrics.OverlayText;
 import raycaster.models.Config;
+import raycaster.models.EntityGrid;
 import raycaster.models.Map;
 import raycaster.models.Player;
+import raycaster.models.PotentiallyVisibleSet;
 
 /**
  * Raycaster engine inspired by 90's PC games.
@@ -56,89 +68,85 @@ public class Raycaster extends JPanel {
     private static int screenWidthExtension = 400;
     private static int screenHeight = 480;
     private static int pixelSize = 20;
-    private static Long startTime = 0L;
-    private static Long endTime = 0L;
-    private static LinkedList<Integer> frameTimes = new LinkedList<>();
-    private static  BufferedImage imgObjects = null;
-    private static  BufferedImage imgBackground = null;
+    private static final int RAY_TRACE_COLOR = Color.green.getRGB();
+    private static long frameStartTime = 0L;
 
     private Player player = new Player(3, 3, 100);
+    // state of the previous tick and the interpolated state that is rendered
+    private final Player previousPlayer = new Player(3, 3, 100);
+    private final Player renderPlayer = new Player(3, 3, 100);
     private Config config = new Config(90, true, true);
 
     private Map map = new Map();
 
-    private static int cores = Runtime.getRuntime().availableProcessors();
-
-    private static Thread[] threads = new Thread[cores];
-    private static BufferedImage[] bufferedImageCore = new BufferedImage[cores];
-
-    private static Graphics2D[] g2dCore = new Graphics2D[cores];
+    private final InputQueue inputQueue = new InputQueue(256);
+    private final char[] tickKeys = new char[256];
+    private InputRecorder inputRecorder;
+    private InputReplay inputReplay;
+
+    private final FrameBuffer frameBuffer = CanvasPresenter.createFrameBuffer(screenWidth + screenWidthExtension,
+            screenHeight);
+    // null when frames are presented by Swing repaints
+    private final CanvasPresenter presenter;
+    private final ScaledRenderer renderer;
+    private final RayTrace rayTrace;
+    // static tiles of the minimap and the map they were drawn for
+    private int[] minimapLayer;
+    private Map minimapLayerMap;
+    private final FrameStats frameStats;
+    // most recent frame times for the graph of the metric overlay
+    private final long[] frameTimes = new long[screenWidthExtension];
+    // kept from frame to frame, so the overlay allocates nothing while its text does not change
+    private final Graphics2D frameGraphics;
+    private final OverlayText frameTimeText = new OverlayText();
+    private final OverlayText fpsText = new OverlayText();
+    private final OverlayText angleText = new OverlayText();
+    private final OverlayText positionText = new OverlayText();
+    private final OverlayText resolutionText = new OverlayText();
 
     public Raycaster() {
+        int cores = config.getRenderThreads();
         System.out.println("Number of cores:" + cores);
+        TextureAtlas textureAtlas = null;
         try {
-            imgObjects = ImageIO.read(new File("static/textures.png"));
+            textureAtlas = TextureAtlas.load(new File("static/textures.png"));
         } catch (IOException e) {
             System.out.println("Error while loading wall-object texture file.");
         }
 
+        BufferedImage imgBackground = null;
         try {
             imgBackground = ImageIO.read(new File("static/background.png"));
         } catch (IOException e) {
             System.out.println("Error while loading background texture file.");
         }
 
+        renderer = new ScaledRenderer(frameBuffer, screenWidth, screenHeight, textureAtlas, imgBackground,
+                new RenderWorkerPool(cores));
+        frameGraphics = frameBuffer.getImage().createGraphics();
+        presenter = config.isActiveRenderingOn()
+                ? new CanvasPresenter(screenWidth + screenWidthExtension, screenHeight, config.getPresentBuffers())
+                : null;
+        frameStats = new FrameStats(cores);
+        renderer.setFrameStats(frameStats);
+        try {
+            frameStats.registerMBeans();
+        } catch (JMException e) {
+            System.out.println("Error while publishing frame stats: " + e.getMessage());
+        }
+        rayTrace = new RayTrace() {
+            @Override
+            public void addPoint(double x, double y) {
+                frameBuffer.setPixel(screenWidth + (int) (x * pixelSize), (int) (y * pixelSize), RAY_TRACE_COLOR);
+            }
+        };
+
 
         KeyEventDispatcher keyEventDispatcher = new KeyEventDispatcher() {
             @Override
             public boolean dispatchKeyEvent(final KeyEvent e) {
                 if (e.getID() == KeyEvent.KEY_TYPED) {
-                    switch (e.getKeyChar()) {
-                        case 'd':
-                            player.setVelocityAngle(player.getVelocityAngle()+1D);
-                            break;
-                        case 'a':
-                            player.setVelocityAngle(player.getVelocityAngle()-1D);
-                            break;
-                        case 'w':
-                            player.setVelocityX(player.getVelocityX() + Math.cos(Math.toRadians(player.getAngle())) / 100);
-                            player.setVelocityY(player.getVelocityY() + Math.sin(Math.toRadians(player.getAngle())) / 100);
-                            break;
-                        case 's':
-                            player.setVelocityX(player.getVelocityX() - Math.cos(Math.toRadians(player.getAngle())) / 100);
-                            player.setVelocityY(player.getVelocityY() - Math.sin(Math.toRadians(player.getAngle())) / 100);
-                            break;
-                        case 'h':
-                            if (config.getFov() < 178) {
-                                config.setFov(config.getFov() + 1);
-                            }
-                            break;
-                        case 'n':
-                            if (config.getFov() > 10) {
-                                config.setFov(config.getFov() - 1);
-                            }
-                            break;
-                        case 'p':
-                            config.setPerspectiveCorrectionOn(!config.isPerspectiveCorrectionOn());
-                            break;
-                        case 'm':
-                            config.setMetricOn(!config.isMetricOn());
-                            break;
-                        case 'q':
-                            player.setAngle(player.getAngle() - 90D);
-                            player.setVelocityX(player.getVelocityX() + Math.cos(Math.toRadians(player.getAngle())) / 100);
-                            player.setVelocityY(player.getVelocityY() + Math.sin(Math.toRadians(player.getAngle())) / 100);
-                            player.setAngle(player.getAngle() + 90D);
-                            break;
-                        case 'e':
-                            player.setAngle(player.getAngle() + 90D);
-                            player.setVelocityX(player.getVelocityX() + Math.cos(Math.toRadians(player.getAngle())) / 100);
-                            player.setVelocityY(player.getVelocityY() + Math.sin(Math.toRadians(player.getAngle())) / 100);
-                            player.setAngle(player.getAngle() - 90D);
-                            break;
-                        default:
-                            break;
-                    }
+                    inputQueue.offer(e.getKeyChar());
                 }
                 return false;
             }
@@ -146,46 +154,114 @@ public class Raycaster extends JPanel {
         KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(keyEventDispatcher);
     }
 
-    private void paintColoredDotInMenu(Graphics2D g, double x, double y, Color color) {
-        g.setColor(color);
-        g.drawLine(screenWidth + (int) (x * pixelSize), (int) (y * pixelSize),
-                screenWidth + (int) (x * pixelSize), (int) (y * pixelSize));
+    /**
+     * Records the input to a file from now on.
+     */
+    public void startRecording(File file) throws IOException {
+        inputRecorder = new InputRecorder(file, player, config);
+        final InputRecorder recorder = inputRecorder;
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    recorder.close();
+                    System.out.println("Recorded " + recorder.getTicks() + " ticks");
+                } catch (IOException e) {
+                    System.out.println("Error while saving input recording.");
+                }
+            }
+        }));
     }
 
-    private void paintColoredVerticalLine(Graphics2D g, double x, double y1, double y2, Color color) {
-        g.setColor(color);
-        g.drawLine((int) (x), (int) (y1),
-                (int) (x), (int) (y2));
+    /**
+     * Replays recorded input instead of the keyboard until the recording ends.
+     */
+    public void startReplay(File file) throws IOException {
+        inputReplay = new InputReplay(file);
+        inputReplay.applyInitialState(player, config);
+        previousPlayer.copyFrom(player);
+        inputQueue.clear();
     }
 
-    @Override
-    protected void paintComponent(Graphics g)
-    {
-        BufferedImage bufferedImage = new BufferedImage(screenWidth+screenWidthExtension, screenHeight, BufferedImage.TYPE_INT_ARGB);
-        Graphics2D g2d = bufferedImage.createGraphics();
-        //paint using g2d ...
-        endTime = startTime;
-        startTime = System.nanoTime();
+    /**
+     * Replaces the built-in map, before the game loop is started. A potentially
+     * visible set saved next to the map is used to cull entities.
+     */
+    public void loadMap(File file) throws IOException {
+        map = Map.load(file);
+        renderer.setEntityGrid(null);
+        renderer.setPotentiallyVisibleSet(PotentiallyVisibleSet.loadIfPresent(map, file));
+    }
 
-        g2d.setColor(new Color(50, 50, 50)); // minimap
-        g2d.fillRect(screenWidth, 0, screenWidth + screenWidthExtension, screenHeight);
-        /*g2d.setColor(new Color(56, 56, 56)); // ceiling
-        g2d.fillRect(0, 0, screenWidth, screenHeight / 2);
-        g2d.setColor(new Color(112, 112, 112)); // floor
-        g2d.fillRect(0, screenHeight / 2, screenWidth, screenHeight);*/
-        //g2d.drawImage(imgBackground,0,0);
-        g2d.drawImage(imgBackground, 0, 0, 640, 480, null);
-        //g2d.dispose();
+    /**
+     * Scatters entities over the empty tiles of the map, the same ones in every run.
+     */
+    public void scatterEntities(int count) {
+        renderer.setEntityGrid(EntityGrid.scatter(map, count, 42L));
+    }
 
-        double playerAngle = player.getAngle();
-        double playerAngleStart = playerAngle - config.getFov() / 2;
+    /**
+     * Runs the simulation and the rendering on a game loop thread.
+     */
+    public GameLoop startGameLoop() {
+        GameLoop gameLoop = new GameLoop(new GameLoop.Game() {
+            @Override
+            public void tick() {
+                Raycaster.this.tick();
+            }
 
-        int xx = 0;
-        int yy = 0;
+            @Override
+            public boolean render(double alpha) {
+                return renderFrame(alpha);
+            }
+        }, config);
+        gameLoop.start();
+        return gameLoop;
+    }
+
+    private void tick() {
+        previousPlayer.copyFrom(player);
+        int keyCount;
+        if (inputReplay != null) {
+            keyCount = inputReplay.nextTick(tickKeys);
+            if (inputReplay.isFinished()) {
+                System.out.println("Replay finished after " + inputReplay.getTicks() + " ticks");
+                inputReplay = null;
+            }
+            inputQueue.clear();
+        } else {
+            keyCount = inputQueue.drain(tickKeys);
+        }
+        if (inputRecorder != null) {
+            try {
+                inputRecorder.recordTick(tickKeys, keyCount);
+            } catch (IOException e) {
+                System.out.println("Error while recording input, recording stopped.");
+                inputRecorder = null;
+            }
+        }
+        for (int key = 0; key < keyCount; key++) {
+            Controls.apply(tickKeys[key], player, config);
+        }
+        player.tick(map);
+    }
+
+    /**
+     * Draws the static tiles of the minimap, the layer is redrawn only when the map changes.
+     */
+    private static int[] renderMinimapLayer(Map map) {
+        BufferedImage layer = new BufferedImage(screenWidthExtension, screenHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = layer.createGraphics();
+        g2d.setColor(new Color(50, 50, 50)); // minimap
+        g2d.fillRect(0, 0, screenWidthExtension, screenHeight);
+        // only the top left corner of large maps fits the minimap
+        int minimapSizeX = Math.min(map.getSizeX(), screenWidthExtension / pixelSize);
+        int minimapSizeY = Math.min(map.getSizeY(), screenHeight / pixelSize);
 
         g2d.setColor(Color.black);
-        for (int[] y : map.getMap()) {
-            for (int x : y) {
+        for (int yy = 0; yy < minimapSizeY; yy++) {
+            for (int xx = 0; xx < minimapSizeX; xx++) {
+                int x = map.getTile(xx, yy);
                 if (x >= 0) {
                     switch (x) {
                         case 0:
@@ -211,292 +287,87 @@ public class Raycaster extends JPanel {
                         default:
                             break;
                     }
-                    g2d.drawRect(screenWidth + xx * pixelSize + 2, yy * pixelSize + 2, pixelSize - 4, pixelSize - 4);
+                    g2d.drawRect(xx * pixelSize + 2, yy * pixelSize + 2, pixelSize - 4, pixelSize - 4);
                 }
-                xx++;
             }
-            xx = 0;
-            yy++;
-        }
-
-        for (int threadCurrentNumber = 0; threadCurrentNumber < cores; threadCurrentNumber++) {
-            final int threadCurrentNumberFinal = threadCurrentNumber;
-            int threadStartCor = screenWidth/cores*threadCurrentNumberFinal;
-            int threadEndCor = screenWidth/cores;
-            bufferedImageCore[threadCurrentNumberFinal] = new BufferedImage(threadEndCor, screenHeight, BufferedImage.TYPE_INT_ARGB);
-            g2dCore[threadCurrentNumberFinal] = bufferedImageCore[threadCurrentNumberFinal].createGraphics();
-
-            threads[threadCurrentNumberFinal] = new Thread(new Runnable() {
-                @Override
-                public void run() {
-                    for (int screenCoordinateX = threadStartCor; screenCoordinateX < threadStartCor+threadEndCor; screenCoordinateX++) {
-                        double rayAngle = playerAngleStart + config.getFov() / screenWidth * screenCoordinateX;
-                        // degrees fixed to range 0-359
-                        if (rayAngle < 0) {
-                            rayAngle += 360;
-                        }
-
-                        if (rayAngle >= 360) {
-                            rayAngle -= 360;
-                        }
-
-                        double rayPositionY = player.getY(); // start position of ray on Y axis
-                        double rayPositionX = player.getX(); // start position of ray on X axis
-                        TreeMap<Double, Double> zBufferWall = new TreeMap(Collections.reverseOrder()); // Double = how far, Integer = what object type
-                        TreeMap<Double, Double> zBufferObject = new TreeMap(Collections.reverseOrder()); // Double = how far, Integer = what object type
-
-                        double rayLengthDeltaX;
-                        double rayLengthDeltaY;
-                        double rayAngleToTileEdge = 0D;
-                        double rayPerspectiveCorrectionAngle = 0D;
-
-                        double rayPositionPreviousX = 0D;
-                        double rayPositionPreviousY = 0D;
-                        byte rayTimeToDie = 50;
-
-                        while (rayPositionX > 0 && rayPositionY > 0 && rayPositionX < map.getSizeX() && rayPositionY < map.getSizeY() && rayTimeToDie > 0) {
-                            rayTimeToDie--;
-
-                            if (rayPositionPreviousX == rayPositionX && rayPositionPreviousY == rayPositionY) {
-                                break;
-                            }
-                            int rayPositionForMapCollisionX = (int) rayPositionX;
-
-                            if (rayAngle > 90 && rayAngle < 270) {
-                                rayPositionForMapCollisionX = (int) Math.ceil(rayPositionX - 1);
-                            }
-                            int rayPositionForMapCollisionY = (int) rayPositionY;
-
-                            if (rayAngle > 180 && rayAngle < 360) {
-                                rayPositionForMapCollisionY = (int) Math.ceil(rayPositionY - 1);
-                            }
-
-                            if (rayPositionForMapCollisionX >= 0 && rayPositionForMapCollisionY >= 0 && rayPositionForMapCollisionX < map.getSizeX() && rayPositionForMapCollisionY < map.getSizeY()) {
-                                int objectOnTheMapTypeId = map.getMap()[(int) rayPositionForMapCollisionY][(int) rayPositionForMapCollisionX];
-                                double rayPositionOffsetFromTheObjectEdge = ((rayPositionX - rayPositionForMapCollisionX) + (rayPositionY - rayPositionForMapCollisionY));
-
-                                Double objectOnTheMapTypeIdWithOffset = objectOnTheMapTypeId + rayPositionOffsetFromTheObjectEdge;
-
-                                if (objectOnTheMapTypeId != -1) // read the map and save it to zbuffer
-                                {
-                                    double rayDistanceFromPlayerX = player.getX() - rayPositionX;
-                                    double rayDistanceFromPlayerY = player.getY() - rayPositionY;
-                                    double rayDistanceFromPlayer = Math.sqrt(Math.pow(rayDistanceFromPlayerX, 2) + Math.pow(rayDistanceFromPlayerY, 2));
-                                    if (objectOnTheMapTypeId >= 10) { // solid walls
-                                        if (config.isPerspectiveCorrectionOn()) {
-                                            rayPerspectiveCorrectionAngle = Math.abs(rayAngle) - Math.abs(playerAngle);
-                                            double rayDistanceFromPlayerWithPerspectiveCorrection = Math.cos(Math.toRadians(rayPerspectiveCorrectionAngle)) * rayDistanceFromPlayer;
-                                            zBufferWall.put(rayDistanceFromPlayerWithPerspectiveCorrection, objectOnTheMapTypeIdWithOffset - 10);
-                                        } else {
-                                            zBufferWall.put(rayDistanceFromPlayer, objectOnTheMapTypeIdWithOffset - 10);
-                                        }
-                                        break;
-                                    } else { // transparent walls
-                                        if (config.isPerspectiveCorrectionOn()) {
-                                            rayPerspectiveCorrectionAngle = Math.abs(rayAngle) - Math.abs(playerAngle);
-                                            double rayDistanceFromPlayerWithPerspectiveCorrection = Math.cos(Math.toRadians(rayPerspectiveCorrectionAngle)) * rayDistanceFromPlayer;
-                                            zBufferObject.put(rayDistanceFromPlayerWithPerspectiveCorrection, objectOnTheMapTypeIdWithOffset);
-                                        } else {
-                                            zBufferObject.put(rayDistanceFromPlayer, objectOnTheMapTypeIdWithOffset);
-                                        }
-                                    }
-                                }
-                            }
-
-                /*
-                4 QUADRANTS:
-                1   0- 90
-                2  90-180
-                3 180-270
-                4 270-360
-                 */
-                            if (rayAngle >= 0 && rayAngle <= 90) {
-                                rayLengthDeltaX = 1 + (int) rayPositionX - rayPositionX;
-                                rayLengthDeltaY = 1 + (int) rayPositionY - rayPositionY;
-
-                                rayAngleToTileEdge = Math.toDegrees(Math.atan(rayLengthDeltaY / rayLengthDeltaX));
-
-                                if (rayAngleToTileEdge >= rayAngle) {
-                                    rayPositionX = rayPositionX + rayLengthDeltaX;
-                                    rayPositionY += Math.tan(Math.toRadians(rayAngle)) * rayLengthDeltaX;
-                                } else {
-                                    rayPositionX += rayLengthDeltaY / Math.tan(Math.toRadians(rayAngle));
-                                    rayPositionY = rayPositionY + rayLengthDeltaY;
-                                }
-
-                            } else if (rayAngle > 90 && rayAngle < 180) {
-                                rayLengthDeltaX = 1 - (int) Math.ceil(rayPositionX) + rayPositionX;
-                                rayLengthDeltaY = 1 + (int) rayPositionY - rayPositionY;
-                                rayAngleToTileEdge = 90 + Math.toDegrees(Math.atan(rayLengthDeltaX / rayLengthDeltaY));
-
-                                if (rayAngleToTileEdge <= rayAngle) {
-                                    rayPositionX = rayPositionX - rayLengthDeltaX;
-                                    rayPositionY += rayLengthDeltaX / Math.tan(Math.toRadians(rayAngle - 90));
-                                } else {
-                                    rayPositionX -= Math.tan(Math.toRadians(rayAngle - 90)) * rayLengthDeltaY;
-                                    rayPositionY = rayPositionY + rayLengthDeltaY;
-                                }
-
-                            } else if (rayAngle >= 180 && rayAngle < 270) {
-                                rayLengthDeltaX = 1 - (int) Math.ceil(rayPositionX) + rayPositionX;
-                                rayLengthDeltaY = 1 - (int) Math.ceil(rayPositionY) + rayPositionY;
-                                rayAngleToTileEdge = 180 + Math.toDegrees(Math.atan(rayLengthDeltaY / rayLengthDeltaX));
-
-                                if (rayAngleToTileEdge > rayAngle) {
-                                    rayPositionX = rayPositionX - rayLengthDeltaX;
-                                    rayPositionY -= Math.tan(Math.toRadians(rayAngle - 180)) * rayLengthDeltaX;
-                                } else {
-                                    rayPositionX -= rayLengthDeltaY / Math.tan(Math.toRadians(rayAngle - 180));
-                                    rayPositionY = rayPositionY - rayLengthDeltaY;
-                                }
-
-                            } else if (rayAngle >= 270 && rayAngle < 360) {
-                                rayLengthDeltaX = 1 + (int) rayPositionX - rayPositionX;
-                                rayLengthDeltaY = 1 - (int) Math.ceil(rayPositionY) + rayPositionY;
-                                rayAngleToTileEdge = 270 + Math.toDegrees(Math.atan(rayLengthDeltaX / rayLengthDeltaY));
-
-                                if (rayAngleToTileEdge > rayAngle) {
-                                    rayPositionX += Math.tan(Math.toRadians(rayAngle - 270)) * rayLengthDeltaY;
-                                    rayPositionY = rayPositionY - rayLengthDeltaY;
-                                } else {
-                                    rayPositionX = rayPositionX + rayLengthDeltaX;
-                                    rayPositionY -= rayLengthDeltaX / Math.tan(Math.toRadians(rayAngle - 270));
-                                }
-                            }
-                            paintColoredDotInMenu(g2d, rayPositionX, rayPositionY, Color.green);
-                            rayPositionPreviousX = rayPositionY;
-                            rayPositionPreviousY = rayPositionX;
-                        }
-                        drawFromZBufferWall(zBufferWall, screenCoordinateX, threadCurrentNumberFinal, threadStartCor);
-                        drawFromZBufferObject(zBufferObject, screenCoordinateX, threadCurrentNumberFinal, threadStartCor);
-                    }
-                }
-            });
-        }
-        for (int threadCurrentNumber = 0; threadCurrentNumber < cores; threadCurrentNumber++) {
-            threads[threadCurrentNumber].start();
         }
+        g2d.dispose();
+        return layer.getRGB(0, 0, screenWidthExtension, screenHeight, null, 0, screenWidthExtension);
+    }
 
-        for (int threadCurrentNumber = 0; threadCurrentNumber < cores; threadCurrentNumber++) {
-            try {
-                threads[threadCurrentNumber].join();
-            } catch (InterruptedException e) {
-                e.printStackTrace();
+    /**
+     * @return false when the view did not change since the last frame and nothing was drawn
+     */
+    private boolean renderFrame(double alpha) {
+        renderPlayer.interpolate(previousPlayer, player, alpha);
+        // the metric overlay changes with every frame
+        boolean current = !config.isMetricOn() && renderer.isFrameCurrent(map, renderPlayer, config);
+        if (presenter == null) {
+            if (current) {
+                return false;
             }
-            int threadStartCoordinateX = screenWidth/cores*threadCurrentNumber;
-            g2dCore[threadCurrentNumber].dispose();
-            g2d.drawImage(bufferedImageCore[threadCurrentNumber],null, threadStartCoordinateX, 0);
-        }
-
-        drawPlayerOnMap(g2d, 2);
-
-        if (config.isMetricOn()) {
-            drawPlayerMetricOnMap(g2d, 12);
-            drawMetricOverlay(g2d);
-        }
-
-        if (endTime != 0L) {
-            int millisElapsed = java.lang.Math.toIntExact((startTime - endTime)/1000/1000);
-            frameTimes.add(millisElapsed);
-            if (frameTimes.size() > screenWidthExtension) {
-                frameTimes.removeFirst();
+            synchronized (frameBuffer) {
+                drawFrame(frameGraphics);
             }
-
-            player.tick(map);
             frame.repaint();
+            return true;
         }
 
-        Graphics2D g2dComponent = (Graphics2D) g;
-        g2dComponent.drawImage(bufferedImage, null, 0, 0);
+        if (current && !presenter.isDamaged()) {
+            return false;
+        }
+        if (!current) {
+            drawFrame(frameGraphics);
+        }
+        long presentStartTime = System.nanoTime();
+        presenter.present(frameBuffer.getImage());
+        frameStats.record(FrameStage.PRESENT, System.nanoTime() - presentStartTime);
+        return true;
     }
 
-    private void drawFromZBufferWall(TreeMap<Double, Double> zBufferWall, int xcor, int finalNumThreads, int threadStartCor) {
-        for (java.util.Map.Entry<Double, Double> entry : zBufferWall.entrySet()) {
-
-            // Actual line by line rendering of the visible object
-            int start = (int) (screenHeight / 2 - screenHeight / (entry.getKey() * 2));
-            int end = (int) (screenHeight / 2 + screenHeight / (entry.getKey() * 2));
-            double middle = 2 * screenHeight / (entry.getKey() * 2);
-
-            double oneArtificialPixelSize = middle / 64;
+    private void drawFrame(Graphics2D g2d) {
+        //paint using g2d ...
+        long previousFrameStartTime = frameStartTime;
+        frameStartTime = System.nanoTime();
+        if (previousFrameStartTime != 0L) {
+            frameStats.record(FrameStage.FRAME, frameStartTime - previousFrameStartTime);
+        }
 
-            for (int verticalPixel = 1; verticalPixel <= middle; verticalPixel++) { // y full range
-                int colorPixel = (int) (verticalPixel / oneArtificialPixelSize);
+        if (minimapLayerMap != map) {
+            minimapLayer = renderMinimapLayer(map);
+            minimapLayerMap = map;
+        }
+        int[] pixels = frameBuffer.getPixels();
+        for (int y = 0; y < screenHeight; y++) {
+            System.arraycopy(minimapLayer, y * screenWidthExtension, pixels,
+                    y * frameBuffer.getWidth() + screenWidth, screenWidthExtension);
+        }
 
-                if (colorPixel > 63) {
-                    colorPixel = 63;
-                }
+        frameStats.record(FrameStage.MINIMAP, System.nanoTime() - frameStartTime);
 
-                int xCorTexture = (int) (entry.getValue() * 64);
+        renderer.render(map, renderPlayer, config, rayTrace);
 
-                if (xCorTexture <= 1) {
-                    xCorTexture = 1;
-                }
+        long composeStartTime = System.nanoTime();
+        drawPlayerOnMap(g2d, 2);
 
-                Color imgColor = new Color(imgObjects.getRGB(xCorTexture, 64 +colorPixel));
-                int red = (int) (imgColor.getRed() - entry.getKey() * 5);
-                int green = (int) (imgColor.getGreen() - entry.getKey() * 5);
-                int blue = (int) (imgColor.getBlue() - entry.getKey() * 5);
-
-                Color resultColor = new Color((red >= 0) ? red : 0, (green >= 0) ? green : 0, (blue >= 0) ? blue : 0);
-                // Performance fix - skipping colorPixels outside of the POV
-                if (start + middle / 64 * colorPixel >= -64 && start + middle / 64 * colorPixel <= 450) {
-                    paintColoredVerticalLine(g2dCore[finalNumThreads],
-                            xcor-threadStartCor,
-                            start + middle / 64 * colorPixel,
-                            start + middle / 64 * colorPixel + oneArtificialPixelSize,
-                            resultColor);
-                }
-            }
+        if (config.isMetricOn()) {
+            drawPlayerMetricOnMap(g2d, 12);
+            drawMetricOverlay(g2d);
+            // the overlay covers part of the view
+            renderer.invalidate();
         }
+        frameStats.record(FrameStage.COMPOSE, System.nanoTime() - composeStartTime);
     }
 
-    private void drawFromZBufferObject(TreeMap<Double, Double> zBufferObject, int xcor, int finalNumThreads, int threadStartCor) {
-        for (java.util.Map.Entry<Double, Double> entry : zBufferObject.entrySet()) {
-
-            // Actual line by line rendering of the visible object
-            int start = (int) (screenHeight / 2 - screenHeight / (entry.getKey() * 2));
-            double middle = 2 * screenHeight / (entry.getKey() * 2);
-
-            double oneArtificialPixelSize = middle / 64;
-
-            if (oneArtificialPixelSize > 150) {
-                // fix FPS drop when near objects
-                break;
-            }
-
-            for (int verticalPixel = 1; verticalPixel <= middle; verticalPixel++) { // y full range
-                int colorPixel = (int) (verticalPixel / oneArtificialPixelSize);
-
-                if (colorPixel > 63) {
-                    colorPixel = 63;
-                }
-
-                int xCorTexture = (int) (entry.getValue() * 64);
-
-                if (xCorTexture <= 1) {
-                    xCorTexture = 1;
-                }
-
-                Color imgColor = new Color(imgObjects.getRGB(xCorTexture, colorPixel));
-                if (imgColor.getGreen() >= 1) {
-                    int red = (int) (imgColor.getRed() - entry.getKey() * 5);
-                    int green = (int) (imgColor.getGreen() - entry.getKey() * 5);
-                    int blue = (int) (imgColor.getBlue() - entry.getKey() * 5);
-
-                    Color resultColor = new Color((red >= 0) ? red : 0, (green >= 0) ? green : 0, (blue >= 0) ? blue : 0);
-
-                    // Performance fix - skipping colorPixels outside of the POV
-                    if (start + middle / 64 * colorPixel >= -64 && start + middle / 64 * colorPixel <= 450) {
-                        paintColoredVerticalLine(g2dCore[finalNumThreads],
-                                xcor - threadStartCor,
-                                start + middle / 64 * colorPixel,
-                                start + middle / 64 * colorPixel + oneArtificialPixelSize,
-                                resultColor);
-                    }
-                }
-            }
+    @Override
+    protected void paintComponent(Graphics g)
+    {
+        long presentStartTime = System.nanoTime();
+        synchronized (frameBuffer) {
+            Graphics2D g2dComponent = (Graphics2D) g;
+            g2dComponent.drawImage(frameBuffer.getImage(), null, 0, 0);
         }
+        frameStats.record(FrameStage.PRESENT, System.nanoTime() - presentStartTime);
     }
 
     private void drawPlayerOnMap(Graphics2D g2d, int playerSize) {
@@ -504,23 +375,23 @@ public class Raycaster extends JPanel {
         g2d.setColor(Color.white);
         g2d.drawRect(
                 screenWidth
-                        + (int) player.getX()
+                        + (int) renderPlayer.getX()
                         * pixelSize,
-                (int) player.getY()
+                (int) renderPlayer.getY()
                         * pixelSize,
                 pixelSize,
                 pixelSize);
 
         g2d.drawLine(
                 screenWidth
-                        + (int) (player.getX()
+                        + (int) (renderPlayer.getX()
                         * pixelSize),
-                (int) (player.getY()
+                (int) (renderPlayer.getY()
                         * pixelSize),
-                screenWidth + (int) (player.getX()
-                        * pixelSize + Math.cos(Math.toRadians(player.getAngle())) * pixelSize * playerSize),
-                (int) (player.getY()
-                        * pixelSize + Math.sin(Math.toRadians(player.getAngle())) * pixelSize * playerSize));
+                screenWidth + (int) (renderPlayer.getX()
+                        * pixelSize + Math.cos(Math.toRadians(renderPlayer.getAngle())) * pixelSize * playerSize),
+                (int) (renderPlayer.getY()
+                        * pixelSize + Math.sin(Math.toRadians(renderPlayer.getAngle())) * pixelSize * playerSize));
     }
     private void drawPlayerMetricOnMap(Graphics2D g2d, int fovLinesLength) {
         //player fov
@@ -528,84 +399,115 @@ public class Raycaster extends JPanel {
         // -1/2 fov
         g2d.drawLine(
                 screenWidth
-                        + (int) (player.getX()
+                        + (int) (renderPlayer.getX()
                         * pixelSize),
-                (int) (player.getY()
+                (int) (renderPlayer.getY()
                         * pixelSize),
-                screenWidth + (int) (player.getX()
-                        * pixelSize + Math.cos(Math.toRadians(player.getAngle() - config.getFov() / 2)) * pixelSize * fovLinesLength),
-                (int) (player.getY()
-                        * pixelSize + Math.sin(Math.toRadians(player.getAngle() - config.getFov() / 2)) * pixelSize * fovLinesLength));
+                screenWidth + (int) (renderPlayer.getX()
+                        * pixelSize + Math.cos(Math.toRadians(renderPlayer.getAngle() - config.getFov() / 2)) * pixelSize * fovLinesLength),
+                (int) (renderPlayer.getY()
+                        * pixelSize + Math.sin(Math.toRadians(renderPlayer.getAngle() - config.getFov() / 2)) * pixelSize * fovLinesLength));
         // +1/2 fov
         g2d.drawLine(
                 screenWidth
-                        + (int) (player.getX()
+                        + (int) (renderPlayer.getX()
                         * pixelSize),
-                (int) (player.getY()
+                (int) (renderPlayer.getY()
                         * pixelSize),
-                screenWidth + (int) (player.getX()
-                        * pixelSize + Math.cos(Math.toRadians(player.getAngle() + config.getFov() / 2)) * pixelSize * fovLinesLength),
-                (int) (player.getY()
-                        * pixelSize + Math.sin(Math.toRadians(player.getAngle() + config.getFov() / 2)) * pixelSize * fovLinesLength));
+                screenWidth + (int) (renderPlayer.getX()
+                        * pixelSize + Math.cos(Math.toRadians(renderPlayer.getAngle() + config.getFov() / 2)) * pixelSize * fovLinesLength),
+                (int) (renderPlayer.getY()
+                        * pixelSize + Math.sin(Math.toRadians(renderPlayer.getAngle() + config.getFov() / 2)) * pixelSize * fovLinesLength));
         // connect fov lines
         g2d.drawLine(
                 screenWidth
-                        + (int) (player.getX()
-                        * pixelSize + Math.cos(Math.toRadians(player.getAngle() - config.getFov() / 2)) * pixelSize * fovLinesLength),
-                (int) (player.getY()
-                        * pixelSize + Math.sin(Math.toRadians(player.getAngle() - config.getFov() / 2)) * pixelSize * fovLinesLength),
-                screenWidth + (int) (player.getX()
-                        * pixelSize + Math.cos(Math.toRadians(player.getAngle() + config.getFov() / 2)) * pixelSize * fovLinesLength),
-                (int) (player.getY()
-                        * pixelSize + Math.sin(Math.toRadians(player.getAngle() + config.getFov() / 2)) * pixelSize * fovLinesLength));
+                        + (int) (renderPlayer.getX()
+                        * pixelSize + Math.cos(Math.toRadians(renderPlayer.getAngle() - config.getFov() / 2)) * pixelSize * fovLinesLength),
+                (int) (renderPlayer.getY()
+                        * pixelSize + Math.sin(Math.toRadians(renderPlayer.getAngle() - config.getFov() / 2)) * pixelSize * fovLinesLength),
+                screenWidth + (int) (renderPlayer.getX()
+                        * pixelSize + Math.cos(Math.toRadians(renderPlayer.getAngle() + config.getFov() / 2)) * pixelSize * fovLinesLength),
+                (int) (renderPlayer.getY()
+                        * pixelSize + Math.sin(Math.toRadians(renderPlayer.getAngle() + config.getFov() / 2)) * pixelSize * fovLinesLength));
     }
 
     private void drawMetricOverlay(Graphics2D g2d) {
+        int frameCount = frameStats.get(FrameStage.FRAME).copyRecent(frameTimes);
+        long lastFrameMillis = (frameCount == 0) ? 100 : frameTimes[frameCount - 1] / 1000 / 1000;
+
         // draw frametime
-        g2d.drawString(String.valueOf(
-                frameTimes.getLast()) + " ms", // frametime in ms
+        g2d.drawString(frameTimeText.clear().append(
+                lastFrameMillis).append(" ms").toText(), // frametime in ms
                 screenWidth + screenWidthExtension/2,
                 pixelSize*22);
 
         // draw frames per second
-        if (frameTimes.getLast() != 0) {
-            g2d.drawString(String.valueOf(
-                    1000/(frameTimes.getLast())) + " FPS", // frametime in ms
+        if (lastFrameMillis != 0) {
+            g2d.drawString(fpsText.clear().append(
+                    1000/lastFrameMillis).append(" FPS").toText(), // frametime in ms
                     1,
                     10
             );
         }
 
         // draw player info
-        g2d.drawString(String.format( "%.2f ° angle",
-                player.getAngle()), // frametime in ms
+        g2d.drawString(angleText.clear().append(
+                renderPlayer.getAngle(), 2).append(" ° angle").toText(),
                 20,
                 pixelSize*20);
-        g2d.drawString(String.format("X: %.2f Y: %.2f",
-                player.getX(), player.getY()), // frametime in ms
+        g2d.drawString(positionText.clear().append("X: ").append(renderPlayer.getX(), 2)
+                .append(" Y: ").append(renderPlayer.getY(), 2).toText(),
                 20,
                 pixelSize*21);
+        if (config.isDynamicResolutionOn()) {
+            g2d.drawString(resolutionText.clear().append(
+                    renderer.getScale() * 100, 0).append(" % resolution").toText(),
+                    20,
+                    pixelSize*22);
+        }
 
         // draw frametime graph
         g2d.setColor(Color.white);
-        for (int frame=1;frame<frameTimes.size();frame++) {
-            g2d.drawLine(screenWidth+frame-1, pixelSize*20+ Math.toIntExact(frameTimes.get(frame-1)/5), screenWidth+frame, pixelSize*20+ Math.toIntExact(frameTimes.get(frame)/5));
+        for (int frame=1;frame<frameCount;frame++) {
+            g2d.drawLine(screenWidth+frame-1, pixelSize*20+ (int) (frameTimes[frame-1]/5_000_000), screenWidth+frame, pixelSize*20+ (int) (frameTimes[frame]/5_000_000));
         }
     }
 
     /**
-     * @param args the command line arguments
+     * @param args the command line arguments, --map FILE, --entities N (after --map), --record FILE or --replay FILE
      */
     public static void main(String[] args) {
+        Raycaster raycaster = new Raycaster();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            try {
+                if (args[i].equals("--map")) {
+                    raycaster.loadMap(new File(args[i + 1]));
+                } else if (args[i].equals("--entities")) {
+                    raycaster.scatterEntities(Integer.parseInt(args[i + 1]));
+                } else if (args[i].equals("--record")) {
+                    raycaster.startRecording(new File(args[i + 1]));
+                } else if (args[i].equals("--replay")) {
+                    raycaster.startReplay(new File(args[i + 1]));
+                } else {
+                    System.out.println("Unknown option " + args[i]);
+                }
+            } catch (IOException e) {
+                System.out.println("Error while opening " + args[i + 1] + ": " + e.getMessage());
+            }
+        }
 
-        frame.getContentPane().add(new Raycaster());
+        if (raycaster.presenter != null) {
+            frame.getContentPane().add(raycaster.presenter.getCanvas());
+        } else {
+            frame.getContentPane().add(raycaster);
+        }
         frame.setSize(screenWidth + screenWidthExtension, screenHeight);
         frame.setVisible(true);
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         frame.setResizable(false);
         frame.setFocusable(true);
-        frameTimes.add(100);
         JPanel jpanel = new JPanel();
         frame.add(jpanel);
+        raycaster.startGameLoop();
     }
 }
@@ -0,0 +1,150 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Work-stealing scheduler of screen columns. Every frame each worker starts
+ * with an even share of the width and takes tiles from the front of it, large
+ * ones first and smaller ones as its share runs out. A worker that runs out
+ * steals the back half of the largest remaining share of another worker, so
+ * workers with cheap columns help the ones with tall walls and objects.
+ *
+ * <p>A share is a [start, end) range packed into one long, owners and thieves
+ * both change it with compare-and-set, so every column is taken exactly once.
+ *
+ * @author Pavel Vavruska
+ */
+public class ColumnScheduler {
+
+    /**
+     * Returned by {@link #next(int)} when no column is left.
+     */
+    public static final long NONE = -1L;
+
+    // longs between two shares, keeps each share on its own cache line
+    private static final int PADDING = 8;
+
+    private final AtomicLongArray shares;
+    private final int workerCount;
+    private final int minTile;
+
+    /**
+     * @param minTile smallest number of columns taken at once
+     */
+    public ColumnScheduler(int workerCount, int minTile) {
+        if (workerCount < 1 || minTile < 1) {
+            throw new IllegalArgumentException("Worker count and tile size must be positive");
+        }
+        this.workerCount = workerCount;
+        this.minTile = minTile;
+        this.shares = new AtomicLongArray(workerCount * PADDING);
+    }
+
+    private static long pack(int start, int end) {
+        return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+
+    public static int tileStart(long tile) {
+        return (int) (tile >>> 32);
+    }
+
+    public static int tileEnd(long tile) {
+        return (int) tile;
+    }
+
+    /**
+     * Splits columns 0 until the given count evenly, call it before the workers start.
+     */
+    public void reset(int columns) {
+        for (int worker = 0; worker < workerCount; worker++) {
+            int start = (int) ((long) columns * worker / workerCount);
+            int end = (int) ((long) columns * (worker + 1) / workerCount);
+            shares.set(worker * PADDING, pack(start, end));
+        }
+    }
+
+    /**
+     * @return next tile of the worker, read it with {@link #tileStart(long)} and
+     * {@link #tileEnd(long)}, or {@link #NONE} when all columns are taken
+     */
+    public long next(int worker) {
+        int index = worker * PADDING;
+        while (true) {
+            long share = shares.get(index);
+            int start = tileStart(share);
+            int end = tileEnd(share);
+            if (start < end) {
+                int tile = Math.max(minTile, (end - start) / 4);
+                int tileEnd = (end - start <= tile) ? end : start + tile;
+                if (shares.compareAndSet(index, share, pack(tileEnd, end))) {
+                    return pack(start, tileEnd);
+                }
+                // a thief took the back of the share, try again
+            } else if (!steal(worker)) {
+                return NONE;
+            }
+        }
+    }
+
+    /**
+     * Moves the back half of the largest share of another worker into the empty
+     * share of this worker.
+     *
+     * @return false when there was nothing left to steal
+     */
+    private boolean steal(int worker) {
+        while (true) {
+            int victim = -1;
+            long victimShare = 0L;
+            int victimRemaining = 0;
+            for (int offset = 1; offset < workerCount; offset++) {
+                int candidate = (worker + offset) % workerCount;
+                long share = shares.get(candidate * PADDING);
+                int remaining = tileEnd(share) - tileStart(share);
+                if (remaining > victimRemaining) {
+                    victim = candidate;
+                    victimShare = share;
+                    victimRemaining = remaining;
+                }
+            }
+            if (victim < 0) {
+                return false;
+            }
+            int start = tileStart(victimShare);
+            int end = tileEnd(victimShare);
+            int middle = start + victimRemaining / 2;
+            if (shares.compareAndSet(victim * PADDING, victimShare, pack(start, middle))) {
+                // nobody else writes an empty share, a plain set is enough
+                shares.set(worker * PADDING, pack(middle, end));
+                return true;
+            }
+        }
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+}
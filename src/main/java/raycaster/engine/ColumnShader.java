@@ -0,0 +1,43 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+/**
+ * Shades a span of texels of one texture column with the distance shading
+ * before it is stretched over the screen column.
+ *
+ * @author Pavel Vavruska
+ */
+public interface ColumnShader {
+
+    /**
+     * @param texels column-major texels
+     * @param offset index of the first texel of the span
+     * @param count number of texels in the span
+     * @param level shade level from {@link ShadeTable#level(double)}
+     * @param transparent texels without green are transparent and become 0
+     * @param out receives the opaque shaded colors from index 0
+     */
+    void shade(int[] texels, int offset, int count, int level, boolean transparent, int[] out);
+}
@@ -0,0 +1,59 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+/**
+ * Chooses the column shader. The Vector API shader lives in its own source
+ * set that is only compiled on JDK 16 and newer, and it only loads when the
+ * jdk.incubator.vector module is added to the JVM. Otherwise, or with
+ * -Draycaster.vectorShading=false, the scalar shader is used.
+ *
+ * @author Pavel Vavruska
+ */
+public final class ColumnShaders {
+
+    private static final String VECTOR_SHADER = "raycaster.engine.VectorColumnShader";
+    private static final ColumnShader SHADER = create();
+
+    private ColumnShaders() {
+    }
+
+    /**
+     * @return shader shared by all renderers, it keeps no state
+     */
+    public static ColumnShader get() {
+        return SHADER;
+    }
+
+    private static ColumnShader create() {
+        if (Boolean.parseBoolean(System.getProperty("raycaster.vectorShading", "true"))) {
+            try {
+                return (ColumnShader) Class.forName(VECTOR_SHADER).getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // not compiled in, or the incubator module is not present
+            }
+        }
+        return new ScalarColumnShader();
+    }
+}
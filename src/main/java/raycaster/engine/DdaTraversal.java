@@ -0,0 +1,133 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+import raycaster.models.Map;
+
+/**
+ * Grid traversal with a digital differential analyzer. The ray moves from tile
+ * to tile by comparing the distances to the next vertical and horizontal tile
+ * edge, so a step costs a few additions. Ray directions and perspective
+ * correction come from the {@link RayTables}.
+ *
+ * @author Pavel Vavruska
+ */
+public class DdaTraversal implements RayTraversal {
+
+    @Override
+    public void castColumn(Map map, double originX, double originY, RayTables rayTables, int column,
+                           boolean perspectiveCorrectionOn, HitBuffer walls, HitBuffer objects, RayTrace trace) {
+        castRay(map, originX, originY, rayTables.getDirectionX(column), rayTables.getDirectionY(column),
+                perspectiveCorrectionOn ? rayTables.getPerspectiveCorrection(column) : 1D, walls, objects, trace);
+    }
+
+    /**
+     * Casts a ray in any direction.
+     *
+     * @param directionX unit vector of the ray on X axis
+     * @param directionY unit vector of the ray on Y axis
+     * @param correction factor the hit distances are multiplied by, 1 for euclidean distances
+     * @param trace receives the ray steps, may be null
+     */
+    public void castRay(Map map, double originX, double originY, double directionX, double directionY,
+                        double correction, HitBuffer walls, HitBuffer objects, RayTrace trace) {
+        int sizeX = map.getSizeX();
+        int sizeY = map.getSizeY();
+
+        if (!(originX > 0 && originY > 0 && originX < sizeX && originY < sizeY)) {
+            return;
+        }
+
+        // a ray starting on a tile edge and heading back starts in the tile behind the edge
+        int tileX = (int) originX;
+        if (directionX < 0 && tileX == originX) {
+            tileX--;
+        }
+        int tileY = (int) originY;
+        if (directionY < 0 && tileY == originY) {
+            tileY--;
+        }
+
+        if (collect(map, tileX, tileY, originX, originY, 0D, walls, objects)) {
+            return;
+        }
+
+        int stepX = (directionX < 0) ? -1 : 1;
+        int stepY = (directionY < 0) ? -1 : 1;
+        double deltaDistanceX = Math.abs(1 / directionX);
+        double deltaDistanceY = Math.abs(1 / directionY);
+        double sideDistanceX = (directionX == 0) ? Double.POSITIVE_INFINITY
+                : ((directionX < 0) ? originX - tileX : tileX + 1 - originX) * deltaDistanceX;
+        double sideDistanceY = (directionY == 0) ? Double.POSITIVE_INFINITY
+                : ((directionY < 0) ? originY - tileY : tileY + 1 - originY) * deltaDistanceY;
+
+        while (true) {
+            double distance;
+            double hitX;
+            double hitY;
+            if (sideDistanceX < sideDistanceY) {
+                distance = sideDistanceX;
+                sideDistanceX += deltaDistanceX;
+                tileX += stepX;
+                hitX = (stepX > 0) ? tileX : tileX + 1;
+                hitY = originY + directionY * distance;
+            } else {
+                distance = sideDistanceY;
+                sideDistanceY += deltaDistanceY;
+                tileY += stepY;
+                hitX = originX + directionX * distance;
+                hitY = (stepY > 0) ? tileY : tileY + 1;
+            }
+
+            if (trace != null) {
+                trace.addPoint(hitX, hitY);
+            }
+            if (!(hitX > 0 && hitY > 0 && hitX < sizeX && hitY < sizeY)
+                    || tileX < 0 || tileY < 0 || tileX >= sizeX || tileY >= sizeY) {
+                return;
+            }
+            if (collect(map, tileX, tileY, hitX, hitY, distance * correction, walls, objects)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true when the tile is a solid wall and the ray ends
+     */
+    private static boolean collect(Map map, int tileX, int tileY, double hitX, double hitY,
+                                   double distance, HitBuffer walls, HitBuffer objects) {
+        int objectOnTheMapTypeId = map.getTile(tileX, tileY);
+        if (objectOnTheMapTypeId == -1) {
+            return false;
+        }
+        double objectOnTheMapTypeIdWithOffset = objectOnTheMapTypeId + ((hitX - tileX) + (hitY - tileY));
+        if (objectOnTheMapTypeId >= 10) { // solid walls
+            walls.add(distance, (int) ((objectOnTheMapTypeIdWithOffset - 10) * 64));
+            return true;
+        }
+        objects.add(distance, (int) (objectOnTheMapTypeIdWithOffset * 64)); // transparent walls
+        return false;
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+import raycaster.models.Map;
+
+/**
+ * Grid traversal like {@link DdaTraversal}, in 16.16 fixed point. Angles are
+ * rounded to 1/65536 of a turn and looked up in a sine table built with
+ * StrictMath, and the tile stepping, distances and texture coordinates use
+ * integer arithmetic only. The hits are therefore the same bits on every JVM
+ * and CPU, which golden image tests and comparisons of frames rendered on
+ * different machines rely on. Columns are cast from the fixed point tables
+ * prepared by {@link RayTables#updateFixedPoint()}.
+ *
+ * @author Pavel Vavruska
+ */
+public class FixedPointTraversal implements RayTraversal {
+
+    public static final int FRACTION_BITS = 16;
+    public static final int ONE = 1 << FRACTION_BITS;
+    public static final int ANGLE_UNITS = 1 << 16;
+
+    private static final int ANGLE_MASK = ANGLE_UNITS - 1;
+    // exact, ONE is a power of two
+    private static final double TO_DOUBLE = 1D / ONE;
+    // beyond any distance inside a map, and adding a step to it does not overflow
+    private static final long FAR = Long.MAX_VALUE >> 2;
+    private static final int[] SINES = new int[ANGLE_UNITS];
+
+    static {
+        for (int angle = 0; angle < ANGLE_UNITS; angle++) {
+            SINES[angle] = (int) StrictMath.round(StrictMath.sin(2 * StrictMath.PI * angle / ANGLE_UNITS) * ONE);
+        }
+    }
+
+    /**
+     * @return the angle in 1/65536 of a turn, rounded to the nearest
+     */
+    public static int toAngleUnits(double degrees) {
+        return (int) Math.floor(degrees * ANGLE_UNITS / 360 + 0.5);
+    }
+
+    /**
+     * @return 16.16 sine of the angle
+     */
+    public static int sin(int angle) {
+        return SINES[angle & ANGLE_MASK];
+    }
+
+    /**
+     * @return 16.16 cosine of the angle
+     */
+    public static int cos(int angle) {
+        return SINES[(angle + ANGLE_UNITS / 4) & ANGLE_MASK];
+    }
+
+    /**
+     * @return 16.16 ray length per tile along an axis with the given 16.16 direction
+     */
+    public static long deltaDistance(int direction) {
+        return (direction == 0) ? FAR : (1L << (2 * FRACTION_BITS)) / Math.abs(direction);
+    }
+
+    @Override
+    public void castColumn(Map map, double originX, double originY, RayTables rayTables, int column,
+                           boolean perspectiveCorrectionOn, HitBuffer walls, HitBuffer objects, RayTrace trace) {
+        cast(map, (long) Math.floor(originX * ONE), (long) Math.floor(originY * ONE),
+                rayTables.getFixedDirectionX(column), rayTables.getFixedDirectionY(column),
+                rayTables.getFixedDeltaDistanceX(column), rayTables.getFixedDeltaDistanceY(column),
+                perspectiveCorrectionOn ? rayTables.getFixedPerspectiveCorrection(column) : ONE,
+                walls, objects, trace);
+    }
+
+    /**
+     * Casts a ray in any direction.
+     *
+     * @param originX 16.16 position of the ray start on X axis
+     * @param originY 16.16 position of the ray start on Y axis
+     * @param directionX 16.16 unit vector of the ray on X axis
+     * @param directionY 16.16 unit vector of the ray on Y axis
+     * @param correction 16.16 factor the hit distances are multiplied by, ONE for euclidean distances
+     * @param trace receives the ray steps, may be null
+     */
+    public void castRay(Map map, long originX, long originY, int directionX, int directionY, int correction,
+                        HitBuffer walls, HitBuffer objects, RayTrace trace) {
+        cast(map, originX, originY, directionX, directionY, deltaDistance(directionX), deltaDistance(directionY),
+                correction, walls, objects, trace);
+    }
+
+    private static void cast(Map map, long originX, long originY, int directionX, int directionY,
+                             long deltaDistanceX, long deltaDistanceY, int correction,
+                             HitBuffer walls, HitBuffer objects, RayTrace trace) {
+        int sizeX = map.getSizeX();
+        int sizeY = map.getSizeY();
+
+        if (!(originX > 0 && originY > 0
+                && originX < ((long) sizeX << FRACTION_BITS) && originY < ((long) sizeY << FRACTION_BITS))) {
+            return;
+        }
+
+        // a ray starting on a tile edge and heading back starts in the tile behind the edge
+        int tileX = (int) (originX >> FRACTION_BITS);
+        if (directionX < 0 && ((long) tileX << FRACTION_BITS) == originX) {
+            tileX--;
+        }
+        int tileY = (int) (originY >> FRACTION_BITS);
+        if (directionY < 0 && ((long) tileY << FRACTION_BITS) == originY) {
+            tileY--;
+        }
+
+        int objectOnTheMapTypeId = map.getTile(tileX, tileY);
+        if (objectOnTheMapTypeId != -1
+                && collect(objectOnTheMapTypeId, tileX, tileY, originX, originY, 0L, walls, objects)) {
+            return;
+        }
+
+        int stepX = (directionX < 0) ? -1 : 1;
+        int stepY = (directionY < 0) ? -1 : 1;
+        long sideDistanceX = (directionX == 0) ? FAR
+                : (((directionX < 0) ? originX - ((long) tileX << FRACTION_BITS)
+                : ((long) (tileX + 1) << FRACTION_BITS) - originX) * deltaDistanceX) >> FRACTION_BITS;
+        long sideDistanceY = (directionY == 0) ? FAR
+                : (((directionY < 0) ? originY - ((long) tileY << FRACTION_BITS)
+                : ((long) (tileY + 1) << FRACTION_BITS) - originY) * deltaDistanceY) >> FRACTION_BITS;
+
+        while (true) {
+            // the crossed tile edge, the ray leaves the map on the outer edges
+            long distance;
+            int edge;
+            boolean vertical;
+            boolean inside;
+            if (sideDistanceX < sideDistanceY) {
+                distance = sideDistanceX;
+                sideDistanceX += deltaDistanceX;
+                tileX += stepX;
+                edge = (stepX > 0) ? tileX : tileX + 1;
+                vertical = true;
+                inside = edge > 0 && edge < sizeX;
+            } else {
+                distance = sideDistanceY;
+                sideDistanceY += deltaDistanceY;
+                tileY += stepY;
+                edge = (stepY > 0) ? tileY : tileY + 1;
+                vertical = false;
+                inside = edge > 0 && edge < sizeY;
+            }
+
+            // the hit is worked out only when something needs it, most tiles are empty
+            objectOnTheMapTypeId = inside ? map.getTile(tileX, tileY) : -1;
+            if (objectOnTheMapTypeId == -1 && trace == null) {
+                if (!inside) {
+                    return;
+                }
+                continue;
+            }
+            long hitX = vertical ? (long) edge << FRACTION_BITS : originX + ((directionX * distance) >> FRACTION_BITS);
+            long hitY = vertical ? originY + ((directionY * distance) >> FRACTION_BITS) : (long) edge << FRACTION_BITS;
+            if (trace != null) {
+                trace.addPoint(hitX * TO_DOUBLE, hitY * TO_DOUBLE);
+            }
+            if (!inside) {
+                return;
+            }
+            if (objectOnTheMapTypeId != -1 && collect(objectOnTheMapTypeId, tileX, tileY, hitX, hitY,
+                    (distance * correction) >> FRACTION_BITS, walls, objects)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return true when the tile is a solid wall and the ray ends
+     */
+    private static boolean collect(int objectOnTheMapTypeId, int tileX, int tileY, long hitX, long hitY,
+                                   long distance, HitBuffer walls, HitBuffer objects) {
+        // position along the tile edge, plus one on the far edges, which picks the second texture
+        long offset = (hitX - ((long) tileX << FRACTION_BITS)) + (hitY - ((long) tileY << FRACTION_BITS));
+        // the conversion is exact, distances inside a map need far fewer than 53 bits
+        double hitDistance = distance * TO_DOUBLE;
+        if (objectOnTheMapTypeId >= 10) { // solid walls
+            walls.add(hitDistance, (int) ((((long) (objectOnTheMapTypeId - 10) << FRACTION_BITS) + offset) * 64 >> FRACTION_BITS));
+            return true;
+        }
+        objects.add(hitDistance, (int) ((((long) objectOnTheMapTypeId << FRACTION_BITS) + offset) * 64 >> FRACTION_BITS)); // transparent walls
+        return false;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+/**
+ * Casts the textured floor and ceiling row by row. All pixels of a row below
+ * the horizon see the floor at the same distance, and the ceiling row mirrored
+ * above the horizon sees the same distance and texel coordinates. Coordinates
+ * are 16.16 fixed point, computed exactly every 16 pixels and stepped by
+ * additions in between. The vectorized {@link ColumnShader} shades the gathered
+ * texels of a row pair at once, the scalar one shades each texel as it is read.
+ * Rows are split into bands, one band per render worker.
+ *
+ * @author Pavel Vavruska
+ */
+public class FloorCaster {
+
+    // textures from the wall row of the atlas
+    private static final int FLOOR_TEXTURE = 0;
+    private static final int CEILING_TEXTURE = 6;
+    // texture coordinates are stepped across spans of this many pixels
+    private static final int SPAN_BITS = 4;
+    private static final int SPAN = 1 << SPAN_BITS;
+
+    private final FrameBuffer frameBuffer;
+    private final int width;
+    private final int height;
+    private final int bands;
+    private final TextureAtlas textureAtlas;
+    private final ColumnShader columnShader = ColumnShaders.get();
+    // the scalar shader is no faster on a gathered row than the shade table on each texel as it is read
+    private final boolean shadeRows = !(columnShader instanceof ScalarColumnShader);
+    private final int floorColumn;
+    private final int ceilingColumn;
+
+    // per column, the 16.16 texel step of the ray for one unit of distance towards the view direction
+    private final int[] rayU;
+    private final int[] rayV;
+    // 16.16 texel coordinates of the camera
+    private int originU;
+    private int originV;
+
+    // per band, the floor texels of a row followed by the ceiling texels, and the same shaded
+    private final int[][] rowTexelsBand;
+    private final int[][] rowShadedBand;
+
+    public FloorCaster(FrameBuffer frameBuffer, int width, int height, TextureAtlas textureAtlas, int bands) {
+        this.frameBuffer = frameBuffer;
+        this.width = width;
+        this.height = height;
+        this.bands = bands;
+        this.textureAtlas = textureAtlas;
+        this.floorColumn = textureAtlas.getColumnOffset(FLOOR_TEXTURE * TextureAtlas.TEXTURE_SIZE) + TextureAtlas.TEXTURE_SIZE;
+        this.ceilingColumn = textureAtlas.getColumnOffset(CEILING_TEXTURE * TextureAtlas.TEXTURE_SIZE) + TextureAtlas.TEXTURE_SIZE;
+        this.rayU = new int[width];
+        this.rayV = new int[width];
+        this.rowTexelsBand = new int[bands][2 * width];
+        this.rowShadedBand = new int[bands][2 * width];
+    }
+
+    /**
+     * Prepares the rays of a frame, call it before the workers start.
+     *
+     * @param perspectiveCorrectionOn whether distances are measured like the walls, along the view direction
+     */
+    public void prepare(RayTables rayTables, double originX, double originY, boolean perspectiveCorrectionOn) {
+        originU = toFixedTexels(originX);
+        originV = toFixedTexels(originY);
+        for (int column = 0; column < width; column++) {
+            double correction = perspectiveCorrectionOn ? rayTables.getPerspectiveCorrection(column) : 1D;
+            rayU[column] = toFixedTexels(rayTables.getDirectionX(column) / correction);
+            rayV[column] = toFixedTexels(rayTables.getDirectionY(column) / correction);
+        }
+    }
+
+    // 16.16 texels, only their position within a texture is used, so they may wrap around
+    private static int toFixedTexels(double tiles) {
+        return (int) (long) Math.floor(tiles * TextureAtlas.TEXTURE_SIZE * FixedPointTraversal.ONE);
+    }
+
+    /**
+     * Casts the floor rows of one band and the ceiling rows mirrored to them.
+     */
+    public void castRows(int band) {
+        int firstFloorRow = height / 2;
+        int floorRows = height - firstFloorRow;
+        int bandStart = firstFloorRow + (int) ((long) floorRows * band / bands);
+        int bandEnd = firstFloorRow + (int) ((long) floorRows * (band + 1) / bands);
+
+        int[] pixels = frameBuffer.getPixels();
+        int stride = frameBuffer.getWidth();
+        int[] texels = textureAtlas.getTexels();
+        int textureStride = textureAtlas.getHeight();
+        int floorColumn = this.floorColumn;
+        int ceilingColumn = this.ceilingColumn;
+        int[] rayU = this.rayU;
+        int[] rayV = this.rayV;
+        int originU = this.originU;
+        int originV = this.originV;
+        int[] rowTexels = rowTexelsBand[band];
+        int[] rowShaded = rowShadedBand[band];
+        boolean shadeRows = this.shadeRows;
+
+        for (int y = bandStart; y < bandEnd; y++) {
+            // a wall at this distance would end at this row
+            double distance = height / (2 * (y + 0.5 - height / 2D));
+            long fixedDistance = (long) (distance * FixedPointTraversal.ONE);
+            int level = ShadeTable.level(distance);
+            int[] shade = ShadeTable.forLevel(level);
+            int floorRow = y * stride;
+            // the middle row of an odd height is its own mirror, the floor is written after the ceiling
+            int ceilingRow = (height - 1 - y) * stride;
+
+            int spanU = originU + (int) ((fixedDistance * rayU[0]) >> FixedPointTraversal.FRACTION_BITS);
+            int spanV = originV + (int) ((fixedDistance * rayV[0]) >> FixedPointTraversal.FRACTION_BITS);
+            for (int spanStart = 0; spanStart < width; spanStart += SPAN) {
+                int spanEnd = Math.min(spanStart + SPAN, width);
+                // the last span ends at the last column, the others at the first column of the next one
+                int endColumn = Math.min(spanEnd, width - 1);
+                int steps = Math.max(endColumn - spanStart, 1);
+                int endU = originU + (int) ((fixedDistance * rayU[endColumn]) >> FixedPointTraversal.FRACTION_BITS);
+                int endV = originV + (int) ((fixedDistance * rayV[endColumn]) >> FixedPointTraversal.FRACTION_BITS);
+                int stepU = (steps == SPAN) ? (endU - spanU) >> SPAN_BITS : (endU - spanU) / steps;
+                int stepV = (steps == SPAN) ? (endV - spanV) >> SPAN_BITS : (endV - spanV) / steps;
+
+                int u = spanU;
+                int v = spanV;
+                for (int x = spanStart; x < spanEnd; x++) {
+                    int texel = ((u >> FixedPointTraversal.FRACTION_BITS) & (TextureAtlas.TEXTURE_SIZE - 1)) * textureStride
+                            + ((v >> FixedPointTraversal.FRACTION_BITS) & (TextureAtlas.TEXTURE_SIZE - 1));
+                    if (shadeRows) {
+                        rowTexels[x] = texels[floorColumn + texel];
+                        rowTexels[width + x] = texels[ceilingColumn + texel];
+                    } else {
+                        pixels[ceilingRow + x] = ShadeTable.shade(texels[ceilingColumn + texel], shade);
+                        pixels[floorRow + x] = ShadeTable.shade(texels[floorColumn + texel], shade);
+                    }
+                    u += stepU;
+                    v += stepV;
+                }
+                spanU = endU;
+                spanV = endV;
+            }
+
+            if (shadeRows) {
+                columnShader.shade(rowTexels, 0, 2 * width, level, false, rowShaded);
+                System.arraycopy(rowShaded, width, pixels, ceilingRow, width);
+                System.arraycopy(rowShaded, 0, pixels, floorRow, width);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * Software framebuffer backed by the int[] of a TYPE_INT_RGB image. Render
+ * workers write pixels straight into the array, each worker into its own
+ * columns, and the image is then presented with a single drawImage.
+ *
+ * @author Pavel Vavruska
+ */
+public class FrameBuffer {
+
+    private final BufferedImage image;
+    private final int[] pixels;
+    private final int width;
+    private final int height;
+
+    public FrameBuffer(int width, int height) {
+        this(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+    }
+
+    /**
+     * Wraps an existing image, e.g. one compatible with the screen.
+     *
+     * @param image TYPE_INT_RGB image
+     */
+    public FrameBuffer(BufferedImage image) {
+        if (image.getType() != BufferedImage.TYPE_INT_RGB) {
+            throw new IllegalArgumentException("Frame buffer image must be TYPE_INT_RGB, not type " + image.getType());
+        }
+        this.width = image.getWidth();
+        this.height = image.getHeight();
+        this.image = image;
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Fills the vertical span y1..y2 (both inclusive) of column x, clipped to
+     * the buffer. Matches Graphics2D.drawLine(x, y1, x, y2).
+     */
+    public void fillColumn(int x, int y1, int y2, int rgb) {
+        if (x < 0 || x >= width) {
+            return;
+        }
+        if (y1 > y2) {
+            int swap = y1;
+            y1 = y2;
+            y2 = swap;
+        }
+        if (y1 < 0) {
+            y1 = 0;
+        }
+        if (y2 >= height) {
+            y2 = height - 1;
+        }
+        int[] pixels = this.pixels;
+        int end = y2 * width + x;
+        for (int index = y1 * width + x; index <= end; index += width) {
+            pixels[index] = rgb;
+        }
+    }
+
+    public void setPixel(int x, int y, int rgb) {
+        if (x >= 0 && y >= 0 && x < width && y < height) {
+            pixels[y * width + x] = rgb;
+        }
+    }
+
+    public BufferedImage getImage() {
+        return image;
+    }
+
+    public int[] getPixels() {
+        return pixels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
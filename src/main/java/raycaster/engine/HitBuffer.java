@@ -0,0 +1,101 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+/**
+ * Fixed-capacity list of ray hits for one screen column. Distances and texture
+ * coordinates are kept in parallel primitive arrays, so a buffer can be reused
+ * for every column without boxing. Hits are returned sorted far-to-near, which
+ * is the order they have to be painted in.
+ *
+ * @author Pavel Vavruska
+ */
+public class HitBuffer {
+
+    private final double[] distances;
+    private final int[] textureXs;
+    private int size = 0;
+
+    public HitBuffer(int capacity) {
+        this.distances = new double[capacity];
+        this.textureXs = new int[capacity];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds a hit. A hit at the same distance as an existing one replaces it.
+     * When the buffer is full the farthest hit is dropped.
+     */
+    public void add(double distance, int textureX) {
+        // stored near-to-far, rays usually find hits in this order
+        int index = size;
+        while (index > 0 && distances[index - 1] > distance) {
+            index--;
+        }
+        if (index > 0 && distances[index - 1] == distance) {
+            textureXs[index - 1] = textureX;
+            return;
+        }
+        if (index == distances.length) {
+            return;
+        }
+        int last = (size == distances.length) ? size - 1 : size;
+        System.arraycopy(distances, index, distances, index + 1, last - index);
+        System.arraycopy(textureXs, index, textureXs, index + 1, last - index);
+        distances[index] = distance;
+        textureXs[index] = textureX;
+        if (size < distances.length) {
+            size++;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param index 0 is the farthest hit
+     */
+    public double getDistance(int index) {
+        return distances[size - 1 - index];
+    }
+
+    /**
+     * @param index 0 is the farthest hit
+     */
+    public int getTextureX(int index) {
+        return textureXs[size - 1 - index];
+    }
+
+    public int getCapacity() {
+        return distances.length;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+import raycaster.models.Map;
+
+/**
+ * Casts rays through a map for any caller, the renderer as well as line of
+ * sight or hit-scan checks. The map is only read and the scratch buffers are
+ * per thread, so one instance can be shared by concurrent callers. Rays are
+ * walked with the {@link DdaTraversal}.
+ *
+ * @author Pavel Vavruska
+ */
+public class MapRayCaster {
+
+    private static final int OBJECT_CAPACITY = 64;
+
+    private final Map map;
+    private final DdaTraversal traversal = new DdaTraversal();
+    private final ThreadLocal<HitBuffer[]> scratch = new ThreadLocal<HitBuffer[]>() {
+        @Override
+        protected HitBuffer[] initialValue() {
+            return new HitBuffer[]{new HitBuffer(1), new HitBuffer(OBJECT_CAPACITY)};
+        }
+    };
+
+    public MapRayCaster(Map map) {
+        this.map = map;
+    }
+
+    public Map getMap() {
+        return map;
+    }
+
+    /**
+     * Casts one ray and collects everything it hits.
+     *
+     * @param directionX unit vector of the ray on X axis
+     * @param directionY unit vector of the ray on Y axis
+     * @param correction factor the hit distances are multiplied by, 1 for euclidean distances
+     * @param walls receives the wall the ray ends on
+     * @param objects receives the transparent objects on the way
+     * @param trace receives the ray steps, may be null
+     */
+    public void castRay(double originX, double originY, double directionX, double directionY, double correction,
+                        HitBuffer walls, HitBuffer objects, RayTrace trace) {
+        traversal.castRay(map, originX, originY, directionX, directionY, correction, walls, objects, trace);
+    }
+
+    /**
+     * Casts a ray for each angle and stores the nearest wall of each of them,
+     * in the order of the angles. Transparent objects do not stop the rays.
+     *
+     * @param angles ray angles in degrees, 0 points along the X axis
+     * @param out cleared and filled with one hit per angle
+     */
+    public void castRays(double originX, double originY, double[] angles, RayHits out) {
+        if (angles.length > out.getCapacity()) {
+            throw new IllegalArgumentException("Cannot store " + angles.length + " rays in a buffer of "
+                    + out.getCapacity());
+        }
+        HitBuffer[] buffers = scratch.get();
+        HitBuffer walls = buffers[0];
+        HitBuffer objects = buffers[1];
+        out.clear();
+        for (double angle : angles) {
+            double directionX = Math.cos(Math.toRadians(angle));
+            double directionY = Math.sin(Math.toRadians(angle));
+            walls.clear();
+            objects.clear();
+            traversal.castRay(map, originX, originY, directionX, directionY, 1D, walls, objects, null);
+            if (walls.isEmpty()) {
+                out.add(Double.POSITIVE_INFINITY, Double.NaN, Double.NaN, -1);
+            } else {
+                double distance = walls.getDistance(0);
+                out.add(distance, originX + directionX * distance, originY + directionY * distance,
+                        walls.getTextureX(0));
+            }
+        }
+    }
+}
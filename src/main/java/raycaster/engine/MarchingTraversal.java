@@ -0,0 +1,179 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+import raycaster.models.Map;
+
+/**
+ * Original ray marcher. It steps from tile edge to tile edge with trigonometry
+ * in each of the four angle quadrants and gives up after 50 steps.
+ *
+ * @author Pavel Vavruska
+ */
+public class MarchingTraversal implements RayTraversal {
+
+    @Override
+    public void castColumn(Map map, double originX, double originY, RayTables rayTables, int column,
+                           boolean perspectiveCorrectionOn, HitBuffer zBufferWall, HitBuffer zBufferObject, RayTrace trace) {
+        double playerAngle = rayTables.getPlayerAngle();
+        double playerAngleStart = playerAngle - rayTables.getFov() / 2;
+        double rayAngle = playerAngleStart + rayTables.getFov() / rayTables.getWidth() * column;
+        // degrees fixed to range 0-359
+        if (rayAngle < 0) {
+            rayAngle += 360;
+        }
+
+        if (rayAngle >= 360) {
+            rayAngle -= 360;
+        }
+
+        double rayPositionY = originY; // start position of ray on Y axis
+        double rayPositionX = originX; // start position of ray on X axis
+
+        double rayLengthDeltaX;
+        double rayLengthDeltaY;
+        double rayAngleToTileEdge = 0D;
+        double rayPerspectiveCorrectionAngle = 0D;
+
+        double rayPositionPreviousX = 0D;
+        double rayPositionPreviousY = 0D;
+        byte rayTimeToDie = 50;
+
+        while (rayPositionX > 0 && rayPositionY > 0 && rayPositionX < map.getSizeX() && rayPositionY < map.getSizeY() && rayTimeToDie > 0) {
+            rayTimeToDie--;
+
+            if (rayPositionPreviousX == rayPositionX && rayPositionPreviousY == rayPositionY) {
+                break;
+            }
+            int rayPositionForMapCollisionX = (int) rayPositionX;
+
+            if (rayAngle > 90 && rayAngle < 270) {
+                rayPositionForMapCollisionX = (int) Math.ceil(rayPositionX - 1);
+            }
+            int rayPositionForMapCollisionY = (int) rayPositionY;
+
+            if (rayAngle > 180 && rayAngle < 360) {
+                rayPositionForMapCollisionY = (int) Math.ceil(rayPositionY - 1);
+            }
+
+            if (rayPositionForMapCollisionX >= 0 && rayPositionForMapCollisionY >= 0 && rayPositionForMapCollisionX < map.getSizeX() && rayPositionForMapCollisionY < map.getSizeY()) {
+                int objectOnTheMapTypeId = map.getTile(rayPositionForMapCollisionX, rayPositionForMapCollisionY);
+                double rayPositionOffsetFromTheObjectEdge = ((rayPositionX - rayPositionForMapCollisionX) + (rayPositionY - rayPositionForMapCollisionY));
+
+                double objectOnTheMapTypeIdWithOffset = objectOnTheMapTypeId + rayPositionOffsetFromTheObjectEdge;
+
+                if (objectOnTheMapTypeId != -1) // read the map and save it to zbuffer
+                {
+                    double rayDistanceFromPlayerX = originX - rayPositionX;
+                    double rayDistanceFromPlayerY = originY - rayPositionY;
+                    double rayDistanceFromPlayer = Math.sqrt(Math.pow(rayDistanceFromPlayerX, 2) + Math.pow(rayDistanceFromPlayerY, 2));
+                    if (objectOnTheMapTypeId >= 10) { // solid walls
+                        if (perspectiveCorrectionOn) {
+                            rayPerspectiveCorrectionAngle = Math.abs(rayAngle) - Math.abs(playerAngle);
+                            double rayDistanceFromPlayerWithPerspectiveCorrection = Math.cos(Math.toRadians(rayPerspectiveCorrectionAngle)) * rayDistanceFromPlayer;
+                            zBufferWall.add(rayDistanceFromPlayerWithPerspectiveCorrection, (int) ((objectOnTheMapTypeIdWithOffset - 10) * 64));
+                        } else {
+                            zBufferWall.add(rayDistanceFromPlayer, (int) ((objectOnTheMapTypeIdWithOffset - 10) * 64));
+                        }
+                        break;
+                    } else { // transparent walls
+                        if (perspectiveCorrectionOn) {
+                            rayPerspectiveCorrectionAngle = Math.abs(rayAngle) - Math.abs(playerAngle);
+                            double rayDistanceFromPlayerWithPerspectiveCorrection = Math.cos(Math.toRadians(rayPerspectiveCorrectionAngle)) * rayDistanceFromPlayer;
+                            zBufferObject.add(rayDistanceFromPlayerWithPerspectiveCorrection, (int) (objectOnTheMapTypeIdWithOffset * 64));
+                        } else {
+                            zBufferObject.add(rayDistanceFromPlayer, (int) (objectOnTheMapTypeIdWithOffset * 64));
+                        }
+                    }
+                }
+            }
+
+            /*
+            4 QUADRANTS:
+            1   0- 90
+            2  90-180
+            3 180-270
+            4 270-360
+             */
+            if (rayAngle >= 0 && rayAngle <= 90) {
+                rayLengthDeltaX = 1 + (int) rayPositionX - rayPositionX;
+                rayLengthDeltaY = 1 + (int) rayPositionY - rayPositionY;
+
+                rayAngleToTileEdge = Math.toDegrees(Math.atan(rayLengthDeltaY / rayLengthDeltaX));
+
+                if (rayAngleToTileEdge >= rayAngle) {
+                    rayPositionX = rayPositionX + rayLengthDeltaX;
+                    rayPositionY += Math.tan(Math.toRadians(rayAngle)) * rayLengthDeltaX;
+                } else {
+                    rayPositionX += rayLengthDeltaY / Math.tan(Math.toRadians(rayAngle));
+                    rayPositionY = rayPositionY + rayLengthDeltaY;
+                }
+
+            } else if (rayAngle > 90 && rayAngle < 180) {
+                rayLengthDeltaX = 1 - (int) Math.ceil(rayPositionX) + rayPositionX;
+                rayLengthDeltaY = 1 + (int) rayPositionY - rayPositionY;
+                rayAngleToTileEdge = 90 + Math.toDegrees(Math.atan(rayLengthDeltaX / rayLengthDeltaY));
+
+                if (rayAngleToTileEdge <= rayAngle) {
+                    rayPositionX = rayPositionX - rayLengthDeltaX;
+                    rayPositionY += rayLengthDeltaX / Math.tan(Math.toRadians(rayAngle - 90));
+                } else {
+                    rayPositionX -= Math.tan(Math.toRadians(rayAngle - 90)) * rayLengthDeltaY;
+                    rayPositionY = rayPositionY + rayLengthDeltaY;
+                }
+
+            } else if (rayAngle >= 180 && rayAngle < 270) {
+                rayLengthDeltaX = 1 - (int) Math.ceil(rayPositionX) + rayPositionX;
+                rayLengthDeltaY = 1 - (int) Math.ceil(rayPositionY) + rayPositionY;
+                rayAngleToTileEdge = 180 + Math.toDegrees(Math.atan(rayLengthDeltaY / rayLengthDeltaX));
+
+                if (rayAngleToTileEdge > rayAngle) {
+                    rayPositionX = rayPositionX - rayLengthDeltaX;
+                    rayPositionY -= Math.tan(Math.toRadians(rayAngle - 180)) * rayLengthDeltaX;
+                } else {
+                    rayPositionX -= rayLengthDeltaY / Math.tan(Math.toRadians(rayAngle - 180));
+                    rayPositionY = rayPositionY - rayLengthDeltaY;
+                }
+
+            } else if (rayAngle >= 270 && rayAngle < 360) {
+                rayLengthDeltaX = 1 + (int) rayPositionX - rayPositionX;
+                rayLengthDeltaY = 1 - (int) Math.ceil(rayPositionY) + rayPositionY;
+                rayAngleToTileEdge = 270 + Math.toDegrees(Math.atan(rayLengthDeltaX / rayLengthDeltaY));
+
+                if (rayAngleToTileEdge > rayAngle) {
+                    rayPositionX += Math.tan(Math.toRadians(rayAngle - 270)) * rayLengthDeltaY;
+                    rayPositionY = rayPositionY - rayLengthDeltaY;
+                } else {
+                    rayPositionX = rayPositionX + rayLengthDeltaX;
+                    rayPositionY -= rayLengthDeltaX / Math.tan(Math.toRadians(rayAngle - 270));
+                }
+            }
+            if (trace != null) {
+                trace.addPoint(rayPositionX, rayPositionY);
+            }
+            rayPositionPreviousX = rayPositionY;
+            rayPositionPreviousY = rayPositionX;
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+/**
+ * Nearest wall hit of each ray of a batch, kept in parallel primitive arrays.
+ * The buffer is filled by {@link MapRayCaster#castRays} and can be reused for
+ * every batch without allocation.
+ *
+ * @author Pavel Vavruska
+ */
+public class RayHits {
+
+    private final double[] distances;
+    private final double[] hitXs;
+    private final double[] hitYs;
+    private final int[] textureXs;
+    private int size = 0;
+
+    public RayHits(int capacity) {
+        this.distances = new double[capacity];
+        this.hitXs = new double[capacity];
+        this.hitYs = new double[capacity];
+        this.textureXs = new int[capacity];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Adds the result of the next ray, a ray without a wall hit has an
+     * infinite distance.
+     */
+    void add(double distance, double hitX, double hitY, int textureX) {
+        distances[size] = distance;
+        hitXs[size] = hitX;
+        hitYs[size] = hitY;
+        textureXs[size] = textureX;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getCapacity() {
+        return distances.length;
+    }
+
+    /**
+     * @return true when the ray ends on a solid wall inside of the map
+     */
+    public boolean isHit(int ray) {
+        return distances[ray] != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return euclidean distance to the wall, infinite without a hit
+     */
+    public double getDistance(int ray) {
+        return distances[ray];
+    }
+
+    public double getHitX(int ray) {
+        return hitXs[ray];
+    }
+
+    public double getHitY(int ray) {
+        return hitYs[ray];
+    }
+
+    /**
+     * @return texture column of the wall, -1 without a hit
+     */
+    public int getTextureX(int ray) {
+        return textureXs[ray];
+    }
+}
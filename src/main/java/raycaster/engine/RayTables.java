@@ -0,0 +1,180 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+/**
+ * Per-column ray tables. Angle offsets from the view direction and their
+ * perspective correction factors depend only on FOV and screen width, so they
+ * are recomputed only when one of them changes. Ray direction vectors are
+ * rotated from them once per frame.
+ *
+ * @author Pavel Vavruska
+ */
+public class RayTables {
+
+    private double fov = Double.NaN;
+    private int width = -1;
+    private double playerAngle;
+
+    private double[] offsetCos = new double[0];
+    private double[] offsetSin = new double[0];
+    private double[] directionX = new double[0];
+    private double[] directionY = new double[0];
+
+    // 16.16 fixed point tables, filled by updateFixedPoint
+    private double fixedFov = Double.NaN;
+    private int[] offsetUnits = new int[0];
+    private int[] fixedCorrection = new int[0];
+    private int[] fixedDirectionX = new int[0];
+    private int[] fixedDirectionY = new int[0];
+    private long[] fixedDeltaDistanceX = new long[0];
+    private long[] fixedDeltaDistanceY = new long[0];
+
+    /**
+     * Prepares the tables for a frame.
+     */
+    public void update(double fov, int width, double playerAngle) {
+        if (fov != this.fov || width != this.width) {
+            if (width != this.width) {
+                offsetCos = new double[width];
+                offsetSin = new double[width];
+                directionX = new double[width];
+                directionY = new double[width];
+                offsetUnits = new int[width];
+                fixedCorrection = new int[width];
+                fixedDirectionX = new int[width];
+                fixedDirectionY = new int[width];
+                fixedDeltaDistanceX = new long[width];
+                fixedDeltaDistanceY = new long[width];
+            }
+            this.fov = fov;
+            this.width = width;
+            for (int column = 0; column < width; column++) {
+                double offset = Math.toRadians(-fov / 2 + fov / width * column);
+                offsetCos[column] = Math.cos(offset);
+                offsetSin[column] = Math.sin(offset);
+            }
+            fixedFov = Double.NaN;
+        }
+        this.playerAngle = playerAngle;
+
+        double playerCos = Math.cos(Math.toRadians(playerAngle));
+        double playerSin = Math.sin(Math.toRadians(playerAngle));
+        for (int column = 0; column < width; column++) {
+            directionX[column] = playerCos * offsetCos[column] - playerSin * offsetSin[column];
+            directionY[column] = playerSin * offsetCos[column] + playerCos * offsetSin[column];
+        }
+    }
+
+    /**
+     * Prepares the 16.16 fixed point tables of {@link FixedPointTraversal} for
+     * the frame set up by the last {@link #update}. Angles are rounded to the
+     * trig table of the traversal, so the tables are the same on every machine.
+     */
+    public void updateFixedPoint() {
+        if (fov != fixedFov) {
+            fixedFov = fov;
+            for (int column = 0; column < width; column++) {
+                offsetUnits[column] = FixedPointTraversal.toAngleUnits(-fov / 2 + fov / width * column);
+                fixedCorrection[column] = FixedPointTraversal.cos(offsetUnits[column]);
+            }
+        }
+        int playerUnits = FixedPointTraversal.toAngleUnits(playerAngle);
+        for (int column = 0; column < width; column++) {
+            int angle = playerUnits + offsetUnits[column];
+            fixedDirectionX[column] = FixedPointTraversal.cos(angle);
+            fixedDirectionY[column] = FixedPointTraversal.sin(angle);
+            fixedDeltaDistanceX[column] = FixedPointTraversal.deltaDistance(fixedDirectionX[column]);
+            fixedDeltaDistanceY[column] = FixedPointTraversal.deltaDistance(fixedDirectionY[column]);
+        }
+    }
+
+    public double getFov() {
+        return fov;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public double getPlayerAngle() {
+        return playerAngle;
+    }
+
+    /**
+     * @return unit vector of the ray on X axis
+     */
+    public double getDirectionX(int column) {
+        return directionX[column];
+    }
+
+    /**
+     * @return unit vector of the ray on Y axis
+     */
+    public double getDirectionY(int column) {
+        return directionY[column];
+    }
+
+    /**
+     * @return cosine of the angle between the ray and the view direction
+     */
+    public double getPerspectiveCorrection(int column) {
+        return offsetCos[column];
+    }
+
+    /**
+     * @return 16.16 unit vector of the ray on X axis, from the angle rounded to the trig table
+     */
+    public int getFixedDirectionX(int column) {
+        return fixedDirectionX[column];
+    }
+
+    /**
+     * @return 16.16 unit vector of the ray on Y axis, from the angle rounded to the trig table
+     */
+    public int getFixedDirectionY(int column) {
+        return fixedDirectionY[column];
+    }
+
+    /**
+     * @return 16.16 ray length per tile along X axis
+     */
+    public long getFixedDeltaDistanceX(int column) {
+        return fixedDeltaDistanceX[column];
+    }
+
+    /**
+     * @return 16.16 ray length per tile along Y axis
+     */
+    public long getFixedDeltaDistanceY(int column) {
+        return fixedDeltaDistanceY[column];
+    }
+
+    /**
+     * @return 16.16 cosine of the angle between the ray and the view direction
+     */
+    public int getFixedPerspectiveCorrection(int column) {
+        return fixedCorrection[column];
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+import java.util.Arrays;
+
+/**
+ * Ray trace points of one render worker, kept in primitive arrays that grow
+ * as needed and are reused from frame to frame.
+ *
+ * @author Pavel Vavruska
+ */
+public class RayTraceBuffer implements RayTrace {
+
+    private double[] xs;
+    private double[] ys;
+    private int size;
+
+    public RayTraceBuffer(int initialCapacity) {
+        xs = new double[Math.max(1, initialCapacity)];
+        ys = new double[xs.length];
+    }
+
+    @Override
+    public void addPoint(double x, double y) {
+        if (size == xs.length) {
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+        }
+        xs[size] = x;
+        ys[size] = y;
+        size++;
+    }
+
+    /**
+     * Passes all points to another trace, in the order they were added.
+     */
+    public void drainTo(RayTrace trace) {
+        for (int point = 0; point < size; point++) {
+            trace.addPoint(xs[point], ys[point]);
+        }
+        size = 0;
+    }
+
+    /**
+     * Passes all points to another trace and keeps them.
+     */
+    public void copyTo(RayTrace trace) {
+        for (int point = 0; point < size; point++) {
+            trace.addPoint(xs[point], ys[point]);
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getX(int point) {
+        return xs[point];
+    }
+
+    public double getY(int point) {
+        return ys[point];
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import raycaster.models.Config;
+import raycaster.models.EntityGrid;
+import raycaster.models.Map;
+import raycaster.models.Player;
+
+/**
+ * Renders the views of many cameras of one map on one shared worker pool,
+ * e.g. for bots, spectators or split screen. A frame of the server renders a
+ * frame of every session, each step of the frame for all sessions in one pool
+ * job, so the workers do not wait for each other between small views. Every
+ * worker visits the sessions in a different order that also rotates from
+ * frame to frame, and the columns of a session are shared out by its work
+ * stealing scheduler, so every session progresses and gets one frame per
+ * server frame. Sessions are opened, closed and moved by the thread calling
+ * {@link #renderFrame()}.
+ *
+ * @author Pavel Vavruska
+ */
+public class RenderServer {
+
+    private final Map map;
+    private final TextureAtlas textureAtlas;
+    private final BufferedImage background;
+    private final RenderWorkerPool renderWorkerPool;
+    private final List<RenderSession> sessions = new ArrayList<>();
+    private EntityGrid entityGrid;
+
+    // sessions of the frame being rendered, read by the workers
+    private RenderSession[] frameSessions = new RenderSession[0];
+    private long frames = 0L;
+
+    private final RenderWorkerPool.Job floorJob = new RenderWorkerPool.Job() {
+        @Override
+        public void run(int worker) {
+            RenderSession[] sessions = frameSessions;
+            int first = firstSession(worker, sessions.length);
+            for (int index = 0; index < sessions.length; index++) {
+                RenderSession session = sessions[(first + index) % sessions.length];
+                if (session.floorCastingFrame) {
+                    session.renderer.castFloorRows(worker);
+                }
+            }
+        }
+    };
+    private final RenderWorkerPool.Job columnJob = new RenderWorkerPool.Job() {
+        @Override
+        public void run(int worker) {
+            RenderSession[] sessions = frameSessions;
+            int first = firstSession(worker, sessions.length);
+            for (int index = 0; index < sessions.length; index++) {
+                sessions[(first + index) % sessions.length].renderer.castColumns(worker);
+            }
+        }
+    };
+    private final RenderWorkerPool.Job spriteJob = new RenderWorkerPool.Job() {
+        @Override
+        public void run(int worker) {
+            RenderSession[] sessions = frameSessions;
+            int first = firstSession(worker, sessions.length);
+            for (int index = 0; index < sessions.length; index++) {
+                RenderSession session = sessions[(first + index) % sessions.length];
+                if (session.spritesFrame) {
+                    session.renderer.drawSprites(worker);
+                }
+            }
+        }
+    };
+
+    /**
+     * @param background floor and ceiling image scaled to the views, may be null
+     */
+    public RenderServer(Map map, TextureAtlas textureAtlas, BufferedImage background,
+                        RenderWorkerPool renderWorkerPool) {
+        this.map = map;
+        this.textureAtlas = textureAtlas;
+        this.background = background;
+        this.renderWorkerPool = renderWorkerPool;
+    }
+
+    /**
+     * Adds a camera with its own view of the map.
+     *
+     * @param player camera, moved by the caller between frames
+     * @param config view settings of the camera
+     */
+    public RenderSession openSession(Player player, Config config, int width, int height) {
+        RenderSession session = new RenderSession(player, config, width, height, textureAtlas, background,
+                renderWorkerPool);
+        session.renderer.setEntityGrid(entityGrid);
+        sessions.add(session);
+        return session;
+    }
+
+    public void closeSession(RenderSession session) {
+        sessions.remove(session);
+    }
+
+    /**
+     * @param entityGrid entities drawn in the views of all sessions, null for none
+     */
+    public void setEntityGrid(EntityGrid entityGrid) {
+        this.entityGrid = entityGrid;
+        for (RenderSession session : sessions) {
+            session.renderer.setEntityGrid(entityGrid);
+        }
+    }
+
+    /**
+     * Renders one frame of every session.
+     */
+    public void renderFrame() {
+        if (sessions.isEmpty()) {
+            return;
+        }
+        if (frameSessions.length != sessions.size()) {
+            frameSessions = new RenderSession[sessions.size()];
+        }
+        sessions.toArray(frameSessions);
+
+        boolean floorCasting = false;
+        for (RenderSession session : frameSessions) {
+            session.floorCastingFrame = session.renderer.beginFrame(map, session.getPlayer(), session.getConfig(), null);
+            floorCasting |= session.floorCastingFrame;
+        }
+        if (floorCasting) {
+            renderWorkerPool.execute(floorJob);
+        }
+
+        renderWorkerPool.execute(columnJob);
+
+        boolean sprites = false;
+        for (RenderSession session : frameSessions) {
+            session.spritesFrame = session.renderer.prepareSprites();
+            sprites |= session.spritesFrame;
+        }
+        if (sprites) {
+            renderWorkerPool.execute(spriteJob);
+        }
+
+        for (RenderSession session : frameSessions) {
+            session.renderer.endFrame(null);
+            session.frameRendered();
+        }
+        frames++;
+    }
+
+    /**
+     * @return session the worker starts with, the workers start evenly spread over the sessions
+     */
+    private int firstSession(int worker, int sessionCount) {
+        int spread = worker * sessionCount / renderWorkerPool.getWorkerCount();
+        return (int) ((spread + frames) % sessionCount);
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    /**
+     * @return number of server frames, each one renders a frame of every session
+     */
+    public long getFrames() {
+        return frames;
+    }
+
+    public Map getMap() {
+        return map;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+import java.awt.image.BufferedImage;
+
+import raycaster.models.Config;
+import raycaster.models.Player;
+
+/**
+ * One camera of a {@link RenderServer}: its player, config and frame buffer.
+ * The camera is moved by its owner between the frames of the server.
+ *
+ * @author Pavel Vavruska
+ */
+public class RenderSession {
+
+    private final Player player;
+    private final Config config;
+    private final FrameBuffer frameBuffer;
+    final Renderer renderer;
+    // steps of the frame being rendered, set by the server
+    boolean floorCastingFrame;
+    boolean spritesFrame;
+    private long frames = 0L;
+
+    RenderSession(Player player, Config config, int width, int height, TextureAtlas textureAtlas,
+                  BufferedImage background, RenderWorkerPool renderWorkerPool) {
+        this.player = player;
+        this.config = config;
+        this.frameBuffer = new FrameBuffer(width, height);
+        this.renderer = new Renderer(frameBuffer, width, height, textureAtlas, background, renderWorkerPool);
+    }
+
+    void frameRendered() {
+        frames++;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public Config getConfig() {
+        return config;
+    }
+
+    /**
+     * @return view of the last frame, valid until the next frame of the server
+     */
+    public FrameBuffer getFrameBuffer() {
+        return frameBuffer;
+    }
+
+    /**
+     * @return number of frames rendered for this camera
+     */
+    public long getFrames() {
+        return frames;
+    }
+}
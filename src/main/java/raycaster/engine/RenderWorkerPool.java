@@ -0,0 +1,215 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Long-lived pool of render workers. Threads are started once and every frame
+ * is dispatched to them by bumping a job generation and unparking them, so the
+ * per-frame path creates no threads and allocates nothing, unlike a phaser,
+ * which allocates a wait node every time a thread blocks. The time each worker
+ * spends in the job and waiting for the others is measured for every job.
+ *
+ * <p>Jobs are dispatched by a single caller at a time, the render loop. The
+ * job, the caller and the measurements are shared by all jobs, so
+ * {@link #execute(Job)} rejects a call while another one is running, also
+ * one made from inside a job.
+ *
+ * @author Pavel Vavruska
+ */
+public class RenderWorkerPool {
+
+    /**
+     * Work executed by every worker once per frame.
+     */
+    public interface Job {
+        void run(int worker);
+    }
+
+    // checks of a condition before the waiting thread parks, spinning only pays off with other cores running
+    private static final int SPINS = (Runtime.getRuntime().availableProcessors() > 1) ? 256 : 0;
+
+    private final Thread[] workers;
+    // bumped by the caller to start a job, workers count down when they finished it
+    private volatile int generation;
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile Thread caller;
+    private final AtomicBoolean executing = new AtomicBoolean();
+    // written by each worker for itself, read after the job once all workers counted down
+    private final long[] busyNanos;
+    private final long[] idleNanos;
+    private final long[] totalBusyNanos;
+    private final long[] totalIdleNanos;
+
+    private volatile Job job;
+    private volatile boolean shutdown = false;
+    private volatile Throwable failure;
+
+    public RenderWorkerPool(int workerCount) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Worker count must be at least 1, was " + workerCount);
+        }
+        this.workers = new Thread[workerCount];
+        this.busyNanos = new long[workerCount];
+        this.idleNanos = new long[workerCount];
+        this.totalBusyNanos = new long[workerCount];
+        this.totalIdleNanos = new long[workerCount];
+
+        for (int worker = 0; worker < workerCount; worker++) {
+            final int workerFinal = worker;
+            workers[worker] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    workerLoop(workerFinal);
+                }
+            }, "raycaster-render-" + worker);
+            workers[worker].setDaemon(true);
+            workers[worker].start();
+        }
+    }
+
+    private void workerLoop(int worker) {
+        int seenGeneration = 0;
+        while (true) {
+            // wait for the frame to start
+            int spins = SPINS;
+            while (generation == seenGeneration) {
+                if (spins > 0) {
+                    spins--;
+                } else {
+                    LockSupport.park(this);
+                }
+            }
+            seenGeneration = generation;
+            if (shutdown) {
+                return;
+            }
+            long startTime = System.nanoTime();
+            try {
+                job.run(worker);
+            } catch (Throwable e) {
+                failure = e;
+            }
+            busyNanos[worker] = System.nanoTime() - startTime;
+            // signal the frame is done
+            if (running.decrementAndGet() == 0) {
+                LockSupport.unpark(caller);
+            }
+        }
+    }
+
+    /**
+     * Runs the job on every worker and blocks until all of them are finished.
+     *
+     * @throws IllegalStateException when the pool is shut down, another call is
+     *                               running or a worker failed
+     */
+    public void execute(Job job) {
+        if (shutdown) {
+            throw new IllegalStateException("Render worker pool is shut down");
+        }
+        if (!executing.compareAndSet(false, true)) {
+            throw new IllegalStateException("Render worker pool is already running a job");
+        }
+        try {
+            runJob(job);
+        } finally {
+            executing.set(false);
+        }
+    }
+
+    private void runJob(Job job) {
+        this.job = job;
+        caller = Thread.currentThread();
+        running.set(workers.length);
+        long startTime = System.nanoTime();
+        generation++;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+        int spins = SPINS;
+        while (running.get() != 0) {
+            if (spins > 0) {
+                spins--;
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        long jobNanos = System.nanoTime() - startTime;
+        this.job = null;
+        caller = null;
+
+        for (int worker = 0; worker < workers.length; worker++) {
+            idleNanos[worker] = Math.max(0L, jobNanos - busyNanos[worker]);
+            totalBusyNanos[worker] += busyNanos[worker];
+            totalIdleNanos[worker] += idleNanos[worker];
+        }
+
+        Throwable workerFailure = failure;
+        if (workerFailure != null) {
+            failure = null;
+            throw new IllegalStateException("Render worker failed", workerFailure);
+        }
+    }
+
+    /**
+     * @return nanoseconds the worker spent in the last job
+     */
+    public long getBusyNanos(int worker) {
+        return busyNanos[worker];
+    }
+
+    /**
+     * @return nanoseconds of the last job the worker was not running it, waiting to start or for the others
+     */
+    public long getIdleNanos(int worker) {
+        return idleNanos[worker];
+    }
+
+    public long getTotalBusyNanos(int worker) {
+        return totalBusyNanos[worker];
+    }
+
+    public long getTotalIdleNanos(int worker) {
+        return totalIdleNanos[worker];
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    public void shutdown() {
+        if (shutdown) {
+            return;
+        }
+        shutdown = true;
+        generation++;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+}
@@ -0,0 +1,824 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import raycaster.metrics.FrameStage;
+import raycaster.metrics.FrameStats;
+import raycaster.models.Config;
+import raycaster.models.Entity;
+import raycaster.models.EntityGrid;
+import raycaster.models.Map;
+import raycaster.models.Player;
+import raycaster.models.PotentiallyVisibleSet;
+
+/**
+ * Renders the player's view into a {@link FrameBuffer} without any Swing
+ * component. Columns are cast and textured on the render worker pool, in
+ * tiles handed out by a {@link ColumnScheduler}. Entities are drawn after the
+ * walls as billboards, column by column behind the nearest wall.
+ * <p>
+ * With temporal reuse on, a frame with the same inputs as the one in the frame
+ * buffer is not rendered again. DDA frames keep the hits of every column, and
+ * when the view only turns by about a whole number of columns the columns are
+ * shifted and only those that came into the view are cast.
+ *
+ * @author Pavel Vavruska
+ */
+public class Renderer {
+
+    private static final int HIT_BUFFER_CAPACITY = 64;
+    private static final int RAY_TRACE_CAPACITY = 4096;
+    private static final int MIN_COLUMN_TILE = 4;
+    // entities closer than this are behind the camera plane
+    private static final double NEAR_DISTANCE = 0.2;
+    // largest turn error in columns a frame built from shifted columns may have
+    private static final double MAX_SHIFT_ERROR = 0.25;
+
+    private final FrameBuffer frameBuffer;
+    private final int width;
+    private final int height;
+    private final int povBottom;
+    private final TextureAtlas textureAtlas;
+    private final int[] background;
+
+    private final RenderWorkerPool renderWorkerPool;
+    private final RenderWorkerPool.Job renderJob;
+    private final RenderWorkerPool.Job floorJob;
+    private final FloorCaster floorCaster;
+    private final RenderWorkerPool.Job spriteJob;
+
+    // distance of the nearest wall of each column, written by the column workers
+    private final double[] wallDepth;
+    private EntityGrid entityGrid;
+    private PotentiallyVisibleSet potentiallyVisibleSet;
+    // entities in the view, sorted by their sort keys, distance and sprite index
+    private int[] candidateEntities = new int[0];
+    private long[] spriteKeys = new long[0];
+    private double[] spriteDistances = new double[0];
+    private double[] spriteLefts = new double[0];
+    private double[] spriteWidths = new double[0];
+    private int[] spriteFirstColumns = new int[0];
+    private int[] spriteLastColumns = new int[0];
+    private int[] spriteTextureColumns = new int[0];
+    private int spriteCount;
+    private final ColumnScheduler columnScheduler;
+    private final HitBuffer[] zBufferWallCore;
+    private final HitBuffer[] zBufferObjectCore;
+    private final RayTraceBuffer[] rayTraceCore;
+    // per worker nanoseconds spent in the last frame, read after the join
+    private final long[] castNanosCore;
+    private final long[] fillNanosCore;
+    // per worker busy and idle nanoseconds summed over the jobs of the frame
+    private final long[] busyNanosCore;
+    private final long[] idleNanosCore;
+    // shaded texels of the column being drawn by each worker
+    private final int[][] shadedTexelsCore;
+    private final ColumnShader columnShader = ColumnShaders.get();
+    private FrameStats frameStats;
+
+    private final RayTables rayTables = new RayTables();
+    private final RayTraversal marchingTraversal = new MarchingTraversal();
+    private final RayTraversal fixedPointTraversal = new FixedPointTraversal();
+    // DDA casts go through the shared engine API, rebuilt when the map changes
+    private MapRayCaster mapRayCaster;
+
+    // state of the frame being rendered, shared with the render workers
+    private Map frameMap;
+    private double frameOriginX;
+    private double frameOriginY;
+    private double frameAngle;
+    private double frameFov;
+    private boolean framePerspectiveCorrectionOn;
+    private boolean frameMipmappingOn;
+    private MapRayCaster frameRayCaster;
+    // marching or fixed point, used when there is no frameRayCaster
+    private RayTraversal frameTraversal;
+    private RayTrace frameRayTrace;
+    private boolean frameReused;
+    private boolean frameColumnsCached;
+    // columns cast in this frame, the others come from the column cache
+    private int frameCastStart;
+    private int frameCastEnd;
+
+    // inputs of the frame in the frame buffer
+    private final ViewState lastView = new ViewState();
+    // euclidean hits and ray steps of every column of the last DDA frame, a ring rotated when the view turns
+    private HitBuffer[] columnWalls;
+    private HitBuffer[] columnObjects;
+    private RayTraceBuffer[] columnTraces;
+    private int columnBase;
+    private double columnAngle;
+
+    /**
+     * @param frameBuffer target, the view is rendered into its top left width x height corner
+     * @param background floor and ceiling image scaled to the view, may be null
+     */
+    public Renderer(FrameBuffer frameBuffer, int width, int height, TextureAtlas textureAtlas,
+                    BufferedImage background, RenderWorkerPool renderWorkerPool) {
+        if (width > frameBuffer.getWidth() || height > frameBuffer.getHeight()) {
+            throw new IllegalArgumentException("View " + width + "x" + height + " does not fit the frame buffer");
+        }
+        this.frameBuffer = frameBuffer;
+        this.width = width;
+        this.height = height;
+        this.povBottom = height * 15 / 16;
+        this.textureAtlas = textureAtlas;
+        this.background = scaleBackground(background, width, height);
+        this.renderWorkerPool = renderWorkerPool;
+
+        int cores = renderWorkerPool.getWorkerCount();
+        zBufferWallCore = new HitBuffer[cores];
+        zBufferObjectCore = new HitBuffer[cores];
+        rayTraceCore = new RayTraceBuffer[cores];
+        columnScheduler = new ColumnScheduler(cores, MIN_COLUMN_TILE);
+        castNanosCore = new long[cores];
+        fillNanosCore = new long[cores];
+        busyNanosCore = new long[cores];
+        idleNanosCore = new long[cores];
+        shadedTexelsCore = new int[cores][TextureAtlas.TEXTURE_SIZE];
+        for (int core = 0; core < cores; core++) {
+            zBufferWallCore[core] = new HitBuffer(HIT_BUFFER_CAPACITY);
+            zBufferObjectCore[core] = new HitBuffer(HIT_BUFFER_CAPACITY);
+            rayTraceCore[core] = new RayTraceBuffer(RAY_TRACE_CAPACITY);
+        }
+        renderJob = new RenderWorkerPool.Job() {
+            @Override
+            public void run(int worker) {
+                renderSlice(worker);
+            }
+        };
+        floorCaster = (textureAtlas != null) ? new FloorCaster(frameBuffer, width, height, textureAtlas, cores) : null;
+        wallDepth = new double[width];
+        spriteJob = new RenderWorkerPool.Job() {
+            @Override
+            public void run(int worker) {
+                drawSprites(worker);
+            }
+        };
+        floorJob = new RenderWorkerPool.Job() {
+            @Override
+            public void run(int worker) {
+                castFloorRows(worker);
+            }
+        };
+    }
+
+    private static int[] scaleBackground(BufferedImage image, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = scaled.createGraphics();
+        if (image != null) {
+            g2d.drawImage(image, 0, 0, width, height, null);
+        } else {
+            g2d.setColor(new Color(56, 56, 56)); // ceiling
+            g2d.fillRect(0, 0, width, height / 2);
+            g2d.setColor(new Color(112, 112, 112)); // floor
+            g2d.fillRect(0, height / 2, width, height);
+        }
+        g2d.dispose();
+        return scaled.getRGB(0, 0, width, height, null, 0, width);
+    }
+
+    /**
+     * Renders one frame of the player's view.
+     *
+     * @param rayTrace receives the ray steps of all workers after they finished, may be null
+     */
+    public void render(Map map, Player player, Config config, RayTrace rayTrace) {
+        Arrays.fill(busyNanosCore, 0L);
+        Arrays.fill(idleNanosCore, 0L);
+
+        long backgroundStartTime = System.nanoTime();
+        if (beginFrame(map, player, config, rayTrace)) {
+            execute(floorJob);
+        }
+        if (frameStats != null) {
+            frameStats.record(FrameStage.BACKGROUND, System.nanoTime() - backgroundStartTime);
+        }
+
+        if (!frameReused) {
+            execute(renderJob);
+        }
+
+        if (hasEntities()) {
+            long spritesStartTime = System.nanoTime();
+            if (prepareSprites()) {
+                execute(spriteJob);
+            }
+            if (frameStats != null) {
+                frameStats.record(FrameStage.SPRITES, System.nanoTime() - spritesStartTime);
+            }
+        }
+        endFrame(rayTrace);
+
+        if (frameStats != null) {
+            for (int worker = 0; worker < castNanosCore.length; worker++) {
+                frameStats.record(FrameStage.RAY_CAST, worker, castNanosCore[worker]);
+                frameStats.record(FrameStage.TEXTURE_FILL, worker, fillNanosCore[worker]);
+                frameStats.record(FrameStage.WORKER_BUSY, worker, busyNanosCore[worker]);
+                frameStats.record(FrameStage.WORKER_IDLE, worker, idleNanosCore[worker]);
+            }
+        }
+    }
+
+    /**
+     * Sets up the frame and draws the background image. It is the first step
+     * of a frame, followed by castFloorRows on every worker when it returned
+     * true, castColumns on every worker, prepareSprites, drawSprites on every
+     * worker when that returned true and endFrame. A {@link RenderServer} runs
+     * each step for all of its sessions in one job of the shared pool.
+     *
+     * @return true when the floor and ceiling have to be cast instead
+     */
+    boolean beginFrame(Map map, Player player, Config config, RayTrace rayTrace) {
+        boolean traced = rayTrace != null;
+        if (!config.isTemporalReuseOn()) {
+            lastView.invalidate();
+        } else if (lastView.matches(map, player, config, entityGrid, potentiallyVisibleSet, traced)) {
+            // the frame buffer already shows this view
+            frameReused = true;
+            frameRayTrace = null;
+            Arrays.fill(castNanosCore, 0L);
+            Arrays.fill(fillNanosCore, 0L);
+            return false;
+        }
+        boolean turned = frameColumnsCached
+                && lastView.matchesPosition(map, player, config, entityGrid, potentiallyVisibleSet, traced);
+        frameReused = false;
+        frameMap = map;
+        frameOriginX = player.getX();
+        frameOriginY = player.getY();
+        frameAngle = player.getAngle();
+        frameFov = config.getFov();
+        framePerspectiveCorrectionOn = config.isPerspectiveCorrectionOn();
+        frameMipmappingOn = config.isMipmappingOn();
+        if (config.getTraversal() == Config.Traversal.DDA) {
+            if (mapRayCaster == null || mapRayCaster.getMap() != map) {
+                mapRayCaster = new MapRayCaster(map);
+            }
+            frameRayCaster = mapRayCaster;
+            frameTraversal = null;
+        } else {
+            frameRayCaster = null;
+            frameTraversal = (config.getTraversal() == Config.Traversal.FIXED_POINT)
+                    ? fixedPointTraversal : marchingTraversal;
+        }
+        frameRayTrace = rayTrace;
+        frameCastStart = 0;
+        frameCastEnd = width;
+        frameColumnsCached = config.isTemporalReuseOn() && frameRayCaster != null;
+        if (frameColumnsCached) {
+            int shift = turned ? columnShift(frameAngle) : 0;
+            if (shift != 0) {
+                // the cached columns were cast from this position, the new ones have to match them
+                frameOriginX = lastView.getX();
+                frameOriginY = lastView.getY();
+                frameAngle = columnAngle + frameFov / width * shift;
+                if (frameAngle >= 360D) {
+                    frameAngle -= 360D;
+                }
+                if (frameAngle < 0D) {
+                    frameAngle += 360D;
+                }
+                columnBase = Math.floorMod(columnBase + shift, width);
+                if (shift > 0) {
+                    frameCastStart = width - shift;
+                } else {
+                    frameCastEnd = -shift;
+                }
+            } else if (columnWalls == null) {
+                columnWalls = new HitBuffer[width];
+                columnObjects = new HitBuffer[width];
+                columnTraces = new RayTraceBuffer[width];
+                for (int column = 0; column < width; column++) {
+                    columnWalls[column] = new HitBuffer(HIT_BUFFER_CAPACITY);
+                    columnObjects[column] = new HitBuffer(HIT_BUFFER_CAPACITY);
+                    columnTraces[column] = new RayTraceBuffer(RAY_TRACE_CAPACITY / width + 1);
+                }
+            }
+            columnAngle = frameAngle;
+        } else {
+            for (RayTraceBuffer rayTraceBuffer : rayTraceCore) {
+                rayTraceBuffer.clear();
+            }
+        }
+        if (config.isTemporalReuseOn()) {
+            lastView.set(map, config, entityGrid, potentiallyVisibleSet, traced, frameOriginX, frameOriginY,
+                    frameAngle);
+        }
+        rayTables.update(frameFov, width, frameAngle);
+        if (frameTraversal == fixedPointTraversal) {
+            rayTables.updateFixedPoint();
+        }
+        columnScheduler.reset(width);
+
+        if (config.isFloorCastingOn() && floorCaster != null) {
+            floorCaster.prepare(rayTables, frameOriginX, frameOriginY, framePerspectiveCorrectionOn);
+            return true;
+        }
+        int[] pixels = frameBuffer.getPixels();
+        int stride = frameBuffer.getWidth();
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(background, y * width, pixels, y * stride, width);
+        }
+        return false;
+    }
+
+    void castFloorRows(int worker) {
+        floorCaster.castRows(worker);
+    }
+
+    void castColumns(int worker) {
+        if (!frameReused) {
+            renderSlice(worker);
+        }
+    }
+
+    boolean hasEntities() {
+        return entityGrid != null && entityGrid.size() > 0;
+    }
+
+    /**
+     * @return true when there are sprites to draw
+     */
+    boolean prepareSprites() {
+        frameRayTrace = null;
+        if (frameReused || !hasEntities()) {
+            spriteCount = 0;
+            return false;
+        }
+        collectSprites(frameAngle, frameFov);
+        return spriteCount > 0;
+    }
+
+    void endFrame(RayTrace rayTrace) {
+        frameMap = null;
+        frameRayTrace = null;
+        if (rayTrace == null) {
+            return;
+        }
+        // the steps are kept, a reused frame passes them on again
+        if (frameColumnsCached) {
+            for (int column = 0; column < width; column++) {
+                columnTraces[columnSlot(column)].copyTo(rayTrace);
+            }
+        } else {
+            for (RayTraceBuffer rayTraceBuffer : rayTraceCore) {
+                rayTraceBuffer.copyTo(rayTrace);
+            }
+        }
+    }
+
+    /**
+     * @return columns the view turned by since the columns were cast, 0 when they cannot be reused
+     */
+    private int columnShift(double angle) {
+        double delta = angle - columnAngle;
+        delta -= 360 * Math.floor((delta + 180) / 360);
+        double columns = delta * width / frameFov;
+        long shift = Math.round(columns);
+        if (Math.abs(shift) >= width || Math.abs(columns - shift) > MAX_SHIFT_ERROR) {
+            return 0;
+        }
+        return (int) shift;
+    }
+
+    private int columnSlot(int column) {
+        int slot = columnBase + column;
+        return (slot >= width) ? slot - width : slot;
+    }
+
+    /**
+     * Casts a column into the column cache unless it was cast in an earlier
+     * frame, then copies its hits with the perspective correction applied.
+     */
+    private void castCachedColumn(int column, HitBuffer zBufferWall, HitBuffer zBufferObject, boolean traced) {
+        int slot = columnSlot(column);
+        HitBuffer walls = columnWalls[slot];
+        HitBuffer objects = columnObjects[slot];
+        if (column >= frameCastStart && column < frameCastEnd) {
+            walls.clear();
+            objects.clear();
+            RayTraceBuffer columnTrace = null;
+            if (traced) {
+                columnTrace = columnTraces[slot];
+                columnTrace.clear();
+            }
+            frameRayCaster.castRay(frameOriginX, frameOriginY, rayTables.getDirectionX(column),
+                    rayTables.getDirectionY(column), 1D, walls, objects, columnTrace);
+        }
+        double correction = framePerspectiveCorrectionOn ? rayTables.getPerspectiveCorrection(column) : 1D;
+        copyCorrected(walls, correction, zBufferWall);
+        copyCorrected(objects, correction, zBufferObject);
+    }
+
+    private static void copyCorrected(HitBuffer source, double correction, HitBuffer target) {
+        // added near-to-far like a ray finds them, so equal corrected distances resolve the same way
+        for (int hit = source.size() - 1; hit >= 0; hit--) {
+            target.add(source.getDistance(hit) * correction, source.getTextureX(hit));
+        }
+    }
+
+    private void execute(RenderWorkerPool.Job job) {
+        renderWorkerPool.execute(job);
+        for (int worker = 0; worker < busyNanosCore.length; worker++) {
+            busyNanosCore[worker] += renderWorkerPool.getBusyNanos(worker);
+            idleNanosCore[worker] += renderWorkerPool.getIdleNanos(worker);
+        }
+    }
+
+    private void renderSlice(int threadCurrentNumber) {
+        HitBuffer zBufferWall = zBufferWallCore[threadCurrentNumber]; // how far, texture column
+        HitBuffer zBufferObject = zBufferObjectCore[threadCurrentNumber]; // how far, texture column
+        RayTraceBuffer rayTrace = (frameRayTrace != null) ? rayTraceCore[threadCurrentNumber] : null;
+
+        long castNanos = 0L;
+        long fillNanos = 0L;
+        long tile;
+        while ((tile = columnScheduler.next(threadCurrentNumber)) != ColumnScheduler.NONE) {
+            int tileEnd = ColumnScheduler.tileEnd(tile);
+            for (int screenCoordinateX = ColumnScheduler.tileStart(tile); screenCoordinateX < tileEnd; screenCoordinateX++) {
+                long castStartTime = System.nanoTime();
+                zBufferWall.clear();
+                zBufferObject.clear();
+                if (frameColumnsCached) {
+                    castCachedColumn(screenCoordinateX, zBufferWall, zBufferObject, rayTrace != null);
+                } else if (frameRayCaster != null) {
+                    frameRayCaster.castRay(frameOriginX, frameOriginY, rayTables.getDirectionX(screenCoordinateX),
+                            rayTables.getDirectionY(screenCoordinateX),
+                            framePerspectiveCorrectionOn ? rayTables.getPerspectiveCorrection(screenCoordinateX) : 1D,
+                            zBufferWall, zBufferObject, rayTrace);
+                } else {
+                    frameTraversal.castColumn(frameMap, frameOriginX, frameOriginY, rayTables, screenCoordinateX,
+                            framePerspectiveCorrectionOn, zBufferWall, zBufferObject, rayTrace);
+                }
+                long fillStartTime = System.nanoTime();
+                wallDepth[screenCoordinateX] = zBufferWall.isEmpty() ? Double.POSITIVE_INFINITY
+                        : zBufferWall.getDistance(zBufferWall.size() - 1); // nearest hit is the last one
+                drawFromZBufferWall(zBufferWall, screenCoordinateX, threadCurrentNumber);
+                drawFromZBufferObject(zBufferObject, screenCoordinateX, threadCurrentNumber);
+                castNanos += fillStartTime - castStartTime;
+                fillNanos += System.nanoTime() - fillStartTime;
+            }
+        }
+        castNanosCore[threadCurrentNumber] = castNanos;
+        fillNanosCore[threadCurrentNumber] = fillNanos;
+    }
+
+    void drawFromZBufferWall(HitBuffer zBufferWall, int xcor, int worker) {
+        int[] shadedTexels = shadedTexelsCore[worker];
+        for (int hit = 0; hit < zBufferWall.size(); hit++) {
+            double distance = zBufferWall.getDistance(hit);
+
+            // Actual line by line rendering of the visible object
+            int start = (int) (height / 2 - height / (distance * 2));
+            double middle = 2 * height / (distance * 2);
+
+            // far walls read a smaller mip level, one to two texels per screen pixel
+            int mipLevel = frameMipmappingOn ? TextureAtlas.mipLevel(middle) : 0;
+            int textureSize = TextureAtlas.TEXTURE_SIZE >> mipLevel;
+            int lastTexel = textureSize - 1;
+            double oneArtificialPixelSize = middle / textureSize;
+
+            int xCorTexture = zBufferWall.getTextureX(hit);
+
+            if (xCorTexture <= 1) {
+                xCorTexture = 1;
+            }
+            int textureColumn = textureAtlas.getColumnOffset(mipLevel, xCorTexture) + textureSize; // walls are in the second row
+            columnShader.shade(textureAtlas.getTexels(mipLevel), textureColumn, textureSize,
+                    ShadeTable.level(distance), false, shadedTexels);
+
+            int previousColorPixel = -1;
+            for (int verticalPixel = 1; verticalPixel <= middle; verticalPixel++) { // y full range
+                int colorPixel = (int) (verticalPixel / oneArtificialPixelSize);
+
+                if (colorPixel > lastTexel) {
+                    colorPixel = lastTexel;
+                }
+                if (colorPixel == previousColorPixel) {
+                    if (colorPixel == lastTexel) {
+                        // whole texture has been painted
+                        break;
+                    }
+                    // the artificial pixel has already been painted
+                    continue;
+                }
+                if (start + middle / textureSize * colorPixel > povBottom) {
+                    // the rest of the texture is below the POV
+                    break;
+                }
+                previousColorPixel = colorPixel;
+
+                // Performance fix - skipping colorPixels outside of the POV
+                if (start + middle / textureSize * colorPixel >= -64 && start + middle / textureSize * colorPixel <= povBottom) {
+                    frameBuffer.fillColumn(xcor,
+                            (int) (start + middle / textureSize * colorPixel),
+                            (int) (start + middle / textureSize * colorPixel + oneArtificialPixelSize),
+                            shadedTexels[colorPixel]);
+                }
+            }
+        }
+    }
+
+    void drawFromZBufferObject(HitBuffer zBufferObject, int xcor, int worker) {
+        for (int hit = 0; hit < zBufferObject.size(); hit++) {
+            double distance = zBufferObject.getDistance(hit);
+
+            if (2 * height / (distance * 2) / 64 > 150) {
+                // fix FPS drop when near objects
+                break;
+            }
+
+            int xCorTexture = zBufferObject.getTextureX(hit);
+
+            if (xCorTexture <= 1) {
+                xCorTexture = 1;
+            }
+            drawObjectColumn(xcor, distance, textureAtlas.getColumnOffset(xCorTexture), worker);
+        }
+    }
+
+    /**
+     * Draws one column of an object texture standing on the floor at the
+     * distance, texels without green are transparent.
+     */
+    private void drawObjectColumn(int xcor, double distance, int textureColumn, int worker) {
+        // Actual line by line rendering of the visible object
+        int start = (int) (height / 2 - height / (distance * 2));
+        double middle = 2 * height / (distance * 2);
+
+        double oneArtificialPixelSize = middle / 64;
+
+        int[] shadedTexels = shadedTexelsCore[worker];
+        columnShader.shade(textureAtlas.getTexels(), textureColumn, TextureAtlas.TEXTURE_SIZE,
+                ShadeTable.level(distance), true, shadedTexels);
+
+        int previousColorPixel = -1;
+        for (int verticalPixel = 1; verticalPixel <= middle; verticalPixel++) { // y full range
+            int colorPixel = (int) (verticalPixel / oneArtificialPixelSize);
+
+            if (colorPixel > 63) {
+                colorPixel = 63;
+            }
+            if (colorPixel == previousColorPixel) {
+                if (colorPixel == 63) {
+                    // whole texture has been painted
+                    break;
+                }
+                // the artificial pixel has already been painted
+                continue;
+            }
+            if (start + middle / 64 * colorPixel > povBottom) {
+                // the rest of the texture is below the POV
+                break;
+            }
+            previousColorPixel = colorPixel;
+
+            int imgColor = shadedTexels[colorPixel];
+            if (imgColor != 0) { // transparent texels are 0 after shading
+                // Performance fix - skipping colorPixels outside of the POV
+                if (start + middle / 64 * colorPixel >= -64 && start + middle / 64 * colorPixel <= povBottom) {
+                    frameBuffer.fillColumn(xcor,
+                            (int) (start + middle / 64 * colorPixel),
+                            (int) (start + middle / 64 * colorPixel + oneArtificialPixelSize),
+                            imgColor);
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the entities in the view cone in front of the farthest wall and
+     * projects them to column ranges, sorted from near to far.
+     */
+    private void collectSprites(double playerAngle, double fov) {
+        spriteCount = 0;
+        int entityCount = entityGrid.size();
+        if (candidateEntities.length < entityCount) {
+            int capacity = Math.max(entityCount, candidateEntities.length * 2);
+            candidateEntities = new int[capacity];
+            spriteKeys = new long[capacity];
+            spriteDistances = new double[capacity];
+            spriteLefts = new double[capacity];
+            spriteWidths = new double[capacity];
+            spriteFirstColumns = new int[capacity];
+            spriteLastColumns = new int[capacity];
+            spriteTextureColumns = new int[capacity];
+        }
+
+        double maxDepth = 0D;
+        for (int column = 0; column < width; column++) {
+            maxDepth = Math.max(maxDepth, wallDepth[column]);
+        }
+        double halfFov = fov / 2;
+        double reach = Math.hypot(frameMap.getSizeX(), frameMap.getSizeY());
+        if (!Double.isInfinite(maxDepth) && halfFov < 89) {
+            // a point in front of the farthest wall is not farther away than on the edge of the view
+            reach = Math.min(reach, maxDepth / Math.cos(Math.toRadians(halfFov)) + 1);
+        }
+
+        // bounding box of the view cone
+        double minX = frameOriginX;
+        double minY = frameOriginY;
+        double maxX = frameOriginX;
+        double maxY = frameOriginY;
+        for (int edge = 0; edge <= 5; edge++) {
+            double angle;
+            if (edge == 0) {
+                angle = playerAngle - halfFov;
+            } else if (edge == 1) {
+                angle = playerAngle + halfFov;
+            } else {
+                // axis directions inside of the view reach farthest along their axis
+                angle = (edge - 2) * 90;
+                double offset = angle - playerAngle;
+                offset -= 360 * Math.floor((offset + 180) / 360);
+                if (Math.abs(offset) > halfFov) {
+                    continue;
+                }
+            }
+            double x = frameOriginX + reach * Math.cos(Math.toRadians(angle));
+            double y = frameOriginY + reach * Math.sin(Math.toRadians(angle));
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+
+        double viewCos = Math.cos(Math.toRadians(playerAngle));
+        double viewSin = Math.sin(Math.toRadians(playerAngle));
+        double tanHalfFov = halfFov < 89 ? Math.tan(Math.toRadians(halfFov)) : Double.POSITIVE_INFINITY;
+        PotentiallyVisibleSet pvs = potentiallyVisibleSet;
+        int originTileX = (int) Math.floor(frameOriginX);
+        int originTileY = (int) Math.floor(frameOriginY);
+        int candidates = entityGrid.query(minX, minY, maxX, maxY, candidateEntities);
+        for (int candidate = 0; candidate < candidates; candidate++) {
+            Entity entity = entityGrid.get(candidateEntities[candidate]);
+            if (pvs != null && !pvs.isVisible(originTileX, originTileY,
+                    (int) Math.floor(entity.getX()), (int) Math.floor(entity.getY()))) {
+                continue;
+            }
+            double deltaX = entity.getX() - frameOriginX;
+            double deltaY = entity.getY() - frameOriginY;
+            double depth = deltaX * viewCos + deltaY * viewSin;
+            if (depth < NEAR_DISTANCE) {
+                continue;
+            }
+            double lateral = deltaY * viewCos - deltaX * viewSin;
+            if (Math.abs(lateral) > depth * tanHalfFov + 0.5) {
+                // outside of the view cone, cheaper than the projection below
+                continue;
+            }
+            double euclidean = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+            double distance = framePerspectiveCorrectionOn ? depth : euclidean;
+            if (distance >= maxDepth || 2 * height / (distance * 2) / 64 > 150) {
+                // behind all walls, or so near it would stall the frame like near objects
+                continue;
+            }
+
+            // columns are spread evenly by angle
+            double offset = Math.toDegrees(Math.atan2(lateral, depth));
+            double halfWidth = Math.toDegrees(Math.atan(0.5 / euclidean));
+            double left = (offset - halfWidth + halfFov) * width / fov;
+            double spriteWidth = 2 * halfWidth * width / fov;
+            int firstColumn = Math.max(0, (int) Math.ceil(left - 0.5));
+            int lastColumn = Math.min(width - 1, (int) Math.floor(left + spriteWidth - 0.5));
+            if (firstColumn > lastColumn) {
+                continue;
+            }
+
+            spriteDistances[spriteCount] = distance;
+            spriteLefts[spriteCount] = left;
+            spriteWidths[spriteCount] = spriteWidth;
+            spriteFirstColumns[spriteCount] = firstColumn;
+            spriteLastColumns[spriteCount] = lastColumn;
+            int texture = entity.getTexture();
+            if (texture < 0 || texture >= textureAtlas.getObjectTextureCount()) {
+                throw new IllegalArgumentException("Entity texture " + texture + " is not one of the "
+                        + textureAtlas.getObjectTextureCount() + " object textures of the atlas");
+            }
+            spriteTextureColumns[spriteCount] = textureAtlas.getColumnOffset(texture * TextureAtlas.TEXTURE_SIZE);
+            // positive floats sort like their bits
+            spriteKeys[spriteCount] = ((long) Float.floatToIntBits((float) distance) << 32) | spriteCount;
+            spriteCount++;
+        }
+        Arrays.sort(spriteKeys, 0, spriteCount);
+    }
+
+    /**
+     * Draws the sprites far to near in the worker's band of columns, each
+     * column only where it is in front of the wall.
+     */
+    void drawSprites(int worker) {
+        int workers = renderWorkerPool.getWorkerCount();
+        int bandStart = (int) ((long) width * worker / workers);
+        int bandEnd = (int) ((long) width * (worker + 1) / workers);
+        int textureStride = textureAtlas.getHeight();
+
+        for (int key = spriteCount - 1; key >= 0; key--) {
+            int sprite = (int) spriteKeys[key];
+            double distance = spriteDistances[sprite];
+            int lastColumn = Math.min(spriteLastColumns[sprite], bandEnd - 1);
+            for (int column = Math.max(spriteFirstColumns[sprite], bandStart); column <= lastColumn; column++) {
+                if (distance >= wallDepth[column]) {
+                    continue;
+                }
+                int textureX = (int) ((column + 0.5 - spriteLefts[sprite]) / spriteWidths[sprite] * TextureAtlas.TEXTURE_SIZE);
+                textureX = Math.max(0, Math.min(TextureAtlas.TEXTURE_SIZE - 1, textureX));
+                drawObjectColumn(column, distance, spriteTextureColumns[sprite] + textureX * textureStride, worker);
+            }
+        }
+    }
+
+    /**
+     * Tells the renderer that its part of the frame buffer was drawn over,
+     * the next frame is rendered in full.
+     */
+    public void invalidate() {
+        lastView.invalidate();
+    }
+
+    /**
+     * @return true when the frame buffer already shows this view and rendering it would change nothing
+     */
+    public boolean isFrameCurrent(Map map, Player player, Config config) {
+        return config.isTemporalReuseOn()
+                && lastView.matches(map, player, config, entityGrid, potentiallyVisibleSet, false);
+    }
+
+    /**
+     * @return true when the last frame was not rendered because the frame buffer already showed it
+     */
+    public boolean isFrameReused() {
+        return frameReused;
+    }
+
+    /**
+     * Draws the entities of the grid in every frame from now on.
+     *
+     * @param entityGrid entities, null for none
+     */
+    public void setEntityGrid(EntityGrid entityGrid) {
+        this.entityGrid = entityGrid;
+    }
+
+    /**
+     * Skips the entities in cells that cannot be seen from the camera's cell.
+     *
+     * @param potentiallyVisibleSet visibility of the rendered map, null to test all entities in the view
+     */
+    public void setPotentiallyVisibleSet(PotentiallyVisibleSet potentiallyVisibleSet) {
+        this.potentiallyVisibleSet = potentiallyVisibleSet;
+    }
+
+    /**
+     * Records the background, ray cast and texture fill timings of every frame.
+     *
+     * @param frameStats stats with one worker per render worker, null to stop recording
+     */
+    public void setFrameStats(FrameStats frameStats) {
+        if (frameStats != null && frameStats.getWorkerCount() != renderWorkerPool.getWorkerCount()) {
+            throw new IllegalArgumentException("Frame stats for " + frameStats.getWorkerCount()
+                    + " workers, the pool has " + renderWorkerPool.getWorkerCount());
+        }
+        this.frameStats = frameStats;
+    }
+
+    public FrameBuffer getFrameBuffer() {
+        return frameBuffer;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+/**
+ * Picks the render resolution that keeps the render time within a budget.
+ * The render time is smoothed over a few frames. A level is dropped as soon
+ * as the smoothed time is over the budget, and raised again only when the
+ * time predicted from the larger pixel count fits the budget with some
+ * headroom, so the resolution does not flip between two levels.
+ *
+ * @author Pavel Vavruska
+ */
+public class ResolutionController {
+
+    private static final double SMOOTHING = 0.25;
+    private static final double HEADROOM = 0.85;
+    private static final int FRAMES_TO_SETTLE = 8;
+
+    private final double[] scales;
+    private int level;
+    private double averageNanos;
+    private int framesAtLevel;
+
+    /**
+     * @param scales linear scale of each level, from the full resolution down
+     */
+    public ResolutionController(double[] scales) {
+        if (scales.length == 0) {
+            throw new IllegalArgumentException("At least one level is needed");
+        }
+        this.scales = scales.clone();
+        reset();
+    }
+
+    /**
+     * Returns to the full resolution.
+     */
+    public void reset() {
+        level = 0;
+        averageNanos = -1D;
+        framesAtLevel = 0;
+    }
+
+    /**
+     * @param renderNanos render time of the last frame, rendered at the current level
+     * @return level of the next frame
+     */
+    public int update(long renderNanos, long budgetNanos) {
+        averageNanos = (averageNanos < 0) ? renderNanos : averageNanos + (renderNanos - averageNanos) * SMOOTHING;
+        framesAtLevel++;
+        if (framesAtLevel < FRAMES_TO_SETTLE && averageNanos < 2 * budgetNanos) {
+            return level;
+        }
+
+        if (averageNanos > budgetNanos && level < scales.length - 1) {
+            changeLevel(level + 1);
+        } else if (level > 0) {
+            double pixelRatio = (scales[level - 1] * scales[level - 1]) / (scales[level] * scales[level]);
+            if (averageNanos * pixelRatio < budgetNanos * HEADROOM) {
+                changeLevel(level - 1);
+            }
+        }
+        return level;
+    }
+
+    private void changeLevel(int newLevel) {
+        // the time is expected to follow the number of pixels
+        double pixelRatio = (scales[newLevel] * scales[newLevel]) / (scales[level] * scales[level]);
+        averageNanos *= pixelRatio;
+        level = newLevel;
+        framesAtLevel = 0;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public double getScale() {
+        return scales[level];
+    }
+}
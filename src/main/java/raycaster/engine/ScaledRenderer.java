@@ -0,0 +1,216 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+import java.awt.image.BufferedImage;
+
+import raycaster.metrics.FrameStage;
+import raycaster.metrics.FrameStats;
+import raycaster.models.Config;
+import raycaster.models.EntityGrid;
+import raycaster.models.Map;
+import raycaster.models.Player;
+import raycaster.models.PotentiallyVisibleSet;
+
+/**
+ * Renders the view at a resolution chosen per frame. With dynamic resolution
+ * on, a {@link ResolutionController} lowers the internal resolution when the
+ * render time exceeds the frame budget, and the smaller image is scaled up
+ * to the view with nearest neighbour sampling. At full resolution the view is
+ * rendered straight into the target frame buffer.
+ *
+ * @author Pavel Vavruska
+ */
+public class ScaledRenderer {
+
+    private static final double[] SCALES = {1D, 0.875, 0.75, 0.625, 0.5, 0.375, 0.25};
+
+    private final FrameBuffer frameBuffer;
+    private final int width;
+    private final int height;
+    private final Renderer[] renderers;
+    // per level, source column of each view column and source row of each view row
+    private final int[][] sourceColumns;
+    private final int[][] sourceRows;
+    private final ResolutionController resolutionController = new ResolutionController(SCALES);
+    private FrameStats frameStats;
+    // level of the next frame and of the last rendered one
+    private int level;
+    private int renderedLevel;
+    // true while the target holds the upscaled image of the rendered level
+    private boolean upscaleCurrent;
+
+    /**
+     * @param frameBuffer target, the view is rendered into its top left width x height corner
+     * @param background floor and ceiling image scaled to the view, may be null
+     */
+    public ScaledRenderer(FrameBuffer frameBuffer, int width, int height, TextureAtlas textureAtlas,
+                          BufferedImage background, RenderWorkerPool renderWorkerPool) {
+        this.frameBuffer = frameBuffer;
+        this.width = width;
+        this.height = height;
+        renderers = new Renderer[SCALES.length];
+        sourceColumns = new int[SCALES.length][];
+        sourceRows = new int[SCALES.length][];
+        renderers[0] = new Renderer(frameBuffer, width, height, textureAtlas, background, renderWorkerPool);
+        for (int level = 1; level < SCALES.length; level++) {
+            int levelWidth = Math.max(1, (int) Math.round(width * SCALES[level]));
+            int levelHeight = Math.max(1, (int) Math.round(height * SCALES[level]));
+            renderers[level] = new Renderer(new FrameBuffer(levelWidth, levelHeight), levelWidth, levelHeight,
+                    textureAtlas, background, renderWorkerPool);
+            sourceColumns[level] = new int[width];
+            for (int x = 0; x < width; x++) {
+                sourceColumns[level][x] = x * levelWidth / width;
+            }
+            sourceRows[level] = new int[height];
+            for (int y = 0; y < height; y++) {
+                sourceRows[level][y] = y * levelHeight / height;
+            }
+        }
+    }
+
+    /**
+     * Renders one frame of the player's view.
+     *
+     * @param rayTrace receives the ray steps of all workers after they finished, may be null
+     */
+    public void render(Map map, Player player, Config config, RayTrace rayTrace) {
+        if (!config.isDynamicResolutionOn()) {
+            if (level != 0) {
+                resolutionController.reset();
+                level = 0;
+            }
+            renderers[0].render(map, player, config, rayTrace);
+            renderedLevel = 0;
+            upscaleCurrent = false;
+            return;
+        }
+
+        long startTime = System.nanoTime();
+        renderers[level].render(map, player, config, rayTrace);
+        if (level == 0) {
+            upscaleCurrent = false;
+        } else if (!upscaleCurrent || level != renderedLevel || !renderers[level].isFrameReused()) {
+            long upscaleStartTime = System.nanoTime();
+            upscale(level);
+            // the full resolution frame in the target is gone
+            renderers[0].invalidate();
+            upscaleCurrent = true;
+            if (frameStats != null) {
+                frameStats.record(FrameStage.UPSCALE, System.nanoTime() - upscaleStartTime);
+            }
+        }
+        renderedLevel = level;
+        long budgetNanos = (long) (config.getFrameBudgetMillis() * 1_000_000);
+        level = resolutionController.update(System.nanoTime() - startTime, budgetNanos);
+    }
+
+    private void upscale(int level) {
+        FrameBuffer source = renderers[level].getFrameBuffer();
+        int[] sourcePixels = source.getPixels();
+        int sourceStride = source.getWidth();
+        int[] pixels = frameBuffer.getPixels();
+        int stride = frameBuffer.getWidth();
+        int[] columns = sourceColumns[level];
+        int[] rows = sourceRows[level];
+
+        for (int y = 0; y < height; y++) {
+            int row = y * stride;
+            if (y > 0 && rows[y] == rows[y - 1]) {
+                // repeated source row, copy the row above
+                System.arraycopy(pixels, row - stride, pixels, row, width);
+                continue;
+            }
+            int sourceRow = rows[y] * sourceStride;
+            for (int x = 0; x < width; x++) {
+                pixels[row + x] = sourcePixels[sourceRow + columns[x]];
+            }
+        }
+    }
+
+    /**
+     * Tells the renderer that the view in the target frame buffer was drawn
+     * over, the next frame is rendered in full.
+     */
+    public void invalidate() {
+        renderers[0].invalidate();
+        upscaleCurrent = false;
+    }
+
+    /**
+     * @return true when the target already shows this view and rendering it would change nothing
+     */
+    public boolean isFrameCurrent(Map map, Player player, Config config) {
+        return level == renderedLevel
+                && (renderedLevel == 0 || upscaleCurrent)
+                && renderers[renderedLevel].isFrameCurrent(map, player, config);
+    }
+
+    /**
+     * @param entityGrid entities drawn in every frame, null for none
+     */
+    public void setEntityGrid(EntityGrid entityGrid) {
+        for (Renderer renderer : renderers) {
+            renderer.setEntityGrid(entityGrid);
+        }
+    }
+
+    /**
+     * Culls the entities of every level with the visibility of the map.
+     */
+    public void setPotentiallyVisibleSet(PotentiallyVisibleSet potentiallyVisibleSet) {
+        for (Renderer renderer : renderers) {
+            renderer.setPotentiallyVisibleSet(potentiallyVisibleSet);
+        }
+    }
+
+    /**
+     * Records the timings of every level and of the upscale.
+     */
+    public void setFrameStats(FrameStats frameStats) {
+        for (Renderer renderer : renderers) {
+            renderer.setFrameStats(frameStats);
+        }
+        this.frameStats = frameStats;
+    }
+
+    /**
+     * @return linear scale of the resolution the last frame was rendered at
+     */
+    public double getScale() {
+        return SCALES[renderedLevel];
+    }
+
+    public FrameBuffer getFrameBuffer() {
+        return frameBuffer;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+}
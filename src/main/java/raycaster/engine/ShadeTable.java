@@ -0,0 +1,82 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+/**
+ * Precomputed distance shading. Every shade level has a lookup table that
+ * darkens one color channel by the level and clamps it at 0.
+ *
+ * @author Pavel Vavruska
+ */
+public final class ShadeTable {
+
+    public static final int LEVELS = 256;
+    private static final double DARKENING_PER_DISTANCE = 5;
+
+    private static final int[][] TABLES = new int[LEVELS][256];
+
+    static {
+        for (int level = 0; level < LEVELS; level++) {
+            for (int channel = 0; channel < 256; channel++) {
+                TABLES[level][channel] = Math.max(0, channel - level);
+            }
+        }
+    }
+
+    private ShadeTable() {
+    }
+
+    /**
+     * Shade level for a distance, channel - level clamped at 0 is the channel
+     * darkened by distance * 5 and truncated.
+     */
+    public static int level(double distance) {
+        double darkening = distance * DARKENING_PER_DISTANCE;
+        if (!(darkening > 0)) {
+            return 0;
+        }
+        if (darkening >= LEVELS - 1) {
+            return LEVELS - 1;
+        }
+        return (int) Math.ceil(darkening);
+    }
+
+    public static int[] forLevel(int level) {
+        return TABLES[level];
+    }
+
+    public static int[] forDistance(double distance) {
+        return TABLES[level(distance)];
+    }
+
+    /**
+     * @return opaque shaded color
+     */
+    public static int shade(int rgb, int[] table) {
+        return 0xFF000000
+                | table[(rgb >> 16) & 0xFF] << 16
+                | table[(rgb >> 8) & 0xFF] << 8
+                | table[rgb & 0xFF];
+    }
+}
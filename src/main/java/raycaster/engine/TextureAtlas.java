@@ -0,0 +1,182 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+/**
+ * Texture image decoded once into a column-major int[], so a vertical strip
+ * of a wall or object texture is contiguous in memory. Mip levels halve the
+ * atlas down to one texel per texture, each texel averages the 2x2 texels of
+ * the level above.
+ *
+ * @author Pavel Vavruska
+ */
+public class TextureAtlas {
+
+    public static final int TEXTURE_SIZE = 64;
+    // levels down to 1x1 textures, 64 >> 6 == 1
+    public static final int MIP_LEVELS = 7;
+
+    private final int width;
+    private final int height;
+    private final int[] texels;
+    private final int[][] mipTexels;
+
+    public TextureAtlas(BufferedImage image) {
+        this.width = image.getWidth();
+        this.height = image.getHeight();
+        this.texels = new int[width * height];
+
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++) {
+                texels[x * height + y] = row[x];
+            }
+        }
+
+        mipTexels = new int[MIP_LEVELS][];
+        mipTexels[0] = texels;
+        for (int level = 1; level < MIP_LEVELS; level++) {
+            mipTexels[level] = downsample(mipTexels[level - 1], getWidth(level - 1), getHeight(level - 1));
+        }
+    }
+
+    /**
+     * Box filters a column-major level to half of its size in both directions.
+     */
+    private static int[] downsample(int[] source, int sourceWidth, int sourceHeight) {
+        int targetWidth = Math.max(1, sourceWidth / 2);
+        int targetHeight = Math.max(1, sourceHeight / 2);
+        int[] target = new int[targetWidth * targetHeight];
+        for (int x = 0; x < targetWidth; x++) {
+            int column = Math.min(2 * x, sourceWidth - 1) * sourceHeight;
+            int nextColumn = Math.min(2 * x + 1, sourceWidth - 1) * sourceHeight;
+            for (int y = 0; y < targetHeight; y++) {
+                int y0 = Math.min(2 * y, sourceHeight - 1);
+                int y1 = Math.min(2 * y + 1, sourceHeight - 1);
+                target[x * targetHeight + y] = average(source[column + y0], source[column + y1],
+                        source[nextColumn + y0], source[nextColumn + y1]);
+            }
+        }
+        return target;
+    }
+
+    private static int average(int a, int b, int c, int d) {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8) {
+            int sum = ((a >>> shift) & 0xFF) + ((b >>> shift) & 0xFF) + ((c >>> shift) & 0xFF) + ((d >>> shift) & 0xFF);
+            result |= ((sum + 2) >> 2) << shift;
+        }
+        return result;
+    }
+
+    public static TextureAtlas load(File file) throws IOException {
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IOException("Unsupported image format: " + file);
+        }
+        return new TextureAtlas(image);
+    }
+
+    /**
+     * @return index of texel (x, 0) in {@link #getTexels()}, x is clamped to the atlas
+     */
+    public int getColumnOffset(int x) {
+        if (x < 0) {
+            x = 0;
+        } else if (x >= width) {
+            x = width - 1;
+        }
+        return x * height;
+    }
+
+    public int getTexel(int x, int y) {
+        return texels[getColumnOffset(x) + y];
+    }
+
+    public int[] getTexels() {
+        return texels;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return number of object textures, the textures of the first row
+     */
+    public int getObjectTextureCount() {
+        return width / TEXTURE_SIZE;
+    }
+
+    /**
+     * @param level 0 is the full size atlas
+     */
+    public int[] getTexels(int level) {
+        return mipTexels[level];
+    }
+
+    /**
+     * @param x column of level 0, clamped to the atlas
+     * @return index of texel (x, 0) scaled down to the level in {@link #getTexels(int)}
+     */
+    public int getColumnOffset(int level, int x) {
+        if (x < 0) {
+            x = 0;
+        } else if (x >= width) {
+            x = width - 1;
+        }
+        return (x >> level) * getHeight(level);
+    }
+
+    public int getWidth(int level) {
+        return Math.max(1, width >> level);
+    }
+
+    public int getHeight(int level) {
+        return Math.max(1, height >> level);
+    }
+
+    /**
+     * @param projectedSize height of a whole texture on screen in pixels
+     * @return smallest level with fewer than two texels per screen pixel, from
+     * level 1 on that is one to two texels, so a texel is at most one pixel high
+     */
+    public static int mipLevel(double projectedSize) {
+        int level = 0;
+        while (level < MIP_LEVELS - 1 && projectedSize * 2 <= (TEXTURE_SIZE >> level)) {
+            level++;
+        }
+        return level;
+    }
+}
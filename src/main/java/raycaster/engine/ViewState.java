@@ -0,0 +1,122 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+import raycaster.models.Config;
+import raycaster.models.EntityGrid;
+import raycaster.models.Map;
+import raycaster.models.Player;
+import raycaster.models.PotentiallyVisibleSet;
+
+/**
+ * Inputs of the frame a renderer has in its frame buffer. Maps do not change
+ * after they are loaded, so the map instance stands for its version, while
+ * the config and the entity grid count their changes, the grid also those
+ * of its entities.
+ *
+ * @author Pavel Vavruska
+ */
+final class ViewState {
+
+    // a stopping player keeps moving by ever smaller steps, closer poses look the same
+    static final double POSE_EPSILON = 1e-6;
+
+    private boolean valid;
+    private Map map;
+    private Config config;
+    private int configVersion;
+    private EntityGrid entityGrid;
+    private long entityVersion;
+    private PotentiallyVisibleSet potentiallyVisibleSet;
+    private boolean traced;
+    private double x;
+    private double y;
+    private double angle;
+
+    void set(Map map, Config config, EntityGrid entityGrid, PotentiallyVisibleSet potentiallyVisibleSet,
+             boolean traced, double x, double y, double angle) {
+        this.valid = true;
+        this.map = map;
+        this.config = config;
+        this.configVersion = config.getVersion();
+        this.entityGrid = entityGrid;
+        this.entityVersion = (entityGrid != null) ? entityGrid.getVersion() : 0L;
+        this.potentiallyVisibleSet = potentiallyVisibleSet;
+        this.traced = traced;
+        this.x = x;
+        this.y = y;
+        this.angle = angle;
+    }
+
+    void invalidate() {
+        valid = false;
+        map = null;
+        config = null;
+        entityGrid = null;
+        potentiallyVisibleSet = null;
+    }
+
+    /**
+     * @param traced true when the ray steps are wanted, a frame rendered without them has none to give
+     * @return true when everything but the view angle is the same
+     */
+    boolean matchesPosition(Map map, Player player, Config config, EntityGrid entityGrid,
+                            PotentiallyVisibleSet potentiallyVisibleSet, boolean traced) {
+        return valid
+                && map == this.map
+                && config == this.config
+                && config.getVersion() == configVersion
+                && entityGrid == this.entityGrid
+                && (entityGrid == null || entityGrid.getVersion() == entityVersion)
+                && potentiallyVisibleSet == this.potentiallyVisibleSet
+                && (!traced || this.traced)
+                && Math.abs(player.getX() - x) <= POSE_EPSILON
+                && Math.abs(player.getY() - y) <= POSE_EPSILON;
+    }
+
+    /**
+     * @return true when the frame would look the same
+     */
+    boolean matches(Map map, Player player, Config config, EntityGrid entityGrid,
+                    PotentiallyVisibleSet potentiallyVisibleSet, boolean traced) {
+        return matchesPosition(map, player, config, entityGrid, potentiallyVisibleSet, traced)
+                && Math.abs(angleTo(player.getAngle())) <= POSE_EPSILON;
+    }
+
+    /**
+     * @return degrees from the view angle to the given one along the shorter arc
+     */
+    double angleTo(double angle) {
+        double delta = angle - this.angle;
+        return delta - 360 * Math.floor((delta + 180) / 360);
+    }
+
+    double getX() {
+        return x;
+    }
+
+    double getY() {
+        return y;
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.input;
+
+import raycaster.models.Config;
+import raycaster.models.Player;
+
+/**
+ * Key bindings. Every typed key is applied to the player and the config at the
+ * start of a simulation tick, so a recorded key stream replays identically.
+ *
+ * @author Pavel Vavruska
+ */
+public final class Controls {
+
+    private Controls() {
+    }
+
+    /**
+     * @return true if the key has a binding and is worth recording
+     */
+    public static boolean isBound(char key) {
+        switch (key) {
+            case 'd':
+            case 'a':
+            case 'w':
+            case 's':
+            case 'h':
+            case 'n':
+            case 'p':
+            case 'm':
+            case 't':
+            case 'f':
+            case 'r':
+            case 'c':
+            case 'i':
+            case 'u':
+            case 'q':
+            case 'e':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    public static void apply(char key, Player player, Config config) {
+        // StrictMath keeps replays bit-exact between JVMs
+        switch (key) {
+            case 'd':
+                player.setVelocityAngle(player.getVelocityAngle()+1D);
+                break;
+            case 'a':
+                player.setVelocityAngle(player.getVelocityAngle()-1D);
+                break;
+            case 'w':
+                player.setVelocityX(player.getVelocityX() + StrictMath.cos(StrictMath.toRadians(player.getAngle())) / 100);
+                player.setVelocityY(player.getVelocityY() + StrictMath.sin(StrictMath.toRadians(player.getAngle())) / 100);
+                break;
+            case 's':
+                player.setVelocityX(player.getVelocityX() - StrictMath.cos(StrictMath.toRadians(player.getAngle())) / 100);
+                player.setVelocityY(player.getVelocityY() - StrictMath.sin(StrictMath.toRadians(player.getAngle())) / 100);
+                break;
+            case 'h':
+                if (config.getFov() < 178) {
+                    config.setFov(config.getFov() + 1);
+                }
+                break;
+            case 'n':
+                if (config.getFov() > 10) {
+                    config.setFov(config.getFov() - 1);
+                }
+                break;
+            case 'p':
+                config.setPerspectiveCorrectionOn(!config.isPerspectiveCorrectionOn());
+                break;
+            case 'm':
+                config.setMetricOn(!config.isMetricOn());
+                break;
+            case 't':
+                Config.Traversal[] traversals = Config.Traversal.values();
+                config.setTraversal(traversals[(config.getTraversal().ordinal() + 1) % traversals.length]);
+                break;
+            case 'f':
+                config.setFpsLimiterOn(!config.isFpsLimiterOn());
+                break;
+            case 'r':
+                config.setDynamicResolutionOn(!config.isDynamicResolutionOn());
+                break;
+            case 'c':
+                config.setFloorCastingOn(!config.isFloorCastingOn());
+                break;
+            case 'i':
+                config.setMipmappingOn(!config.isMipmappingOn());
+                break;
+            case 'u':
+                config.setTemporalReuseOn(!config.isTemporalReuseOn());
+                break;
+            case 'q':
+                player.setAngle(player.getAngle() - 90D);
+                player.setVelocityX(player.getVelocityX() + StrictMath.cos(StrictMath.toRadians(player.getAngle())) / 100);
+                player.setVelocityY(player.getVelocityY() + StrictMath.sin(StrictMath.toRadians(player.getAngle())) / 100);
+                player.setAngle(player.getAngle() + 90D);
+                break;
+            case 'e':
+                player.setAngle(player.getAngle() + 90D);
+                player.setVelocityX(player.getVelocityX() + StrictMath.cos(StrictMath.toRadians(player.getAngle())) / 100);
+                player.setVelocityY(player.getVelocityY() + StrictMath.sin(StrictMath.toRadians(player.getAngle())) / 100);
+                player.setAngle(player.getAngle() - 90D);
+                break;
+            default:
+                break;
+        }
+    }
+}
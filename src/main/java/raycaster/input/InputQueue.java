@@ -0,0 +1,68 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.input;
+
+/**
+ * Keys typed on the event dispatch thread, waiting for the next simulation
+ * tick. Backed by a fixed ring, keys typed while it is full are dropped.
+ *
+ * @author Pavel Vavruska
+ */
+public class InputQueue {
+
+    private final char[] keys;
+    private int head = 0;
+    private int size = 0;
+
+    public InputQueue(int capacity) {
+        this.keys = new char[capacity];
+    }
+
+    public synchronized void offer(char key) {
+        if (size < keys.length) {
+            keys[(head + size) % keys.length] = key;
+            size++;
+        }
+    }
+
+    /**
+     * Moves all waiting keys into the buffer.
+     *
+     * @return number of keys moved
+     */
+    public synchronized int drain(char[] buffer) {
+        int count = Math.min(size, buffer.length);
+        for (int i = 0; i < count; i++) {
+            buffer[i] = keys[(head + i) % keys.length];
+        }
+        head = (head + count) % keys.length;
+        size -= count;
+        return count;
+    }
+
+    public synchronized void clear() {
+        head = 0;
+        size = 0;
+    }
+}
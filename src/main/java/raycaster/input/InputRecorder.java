@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.input;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import raycaster.models.Config;
+import raycaster.models.Player;
+
+/**
+ * Writes the keys applied in every simulation tick to a compact file.
+ * <p>
+ * Format: magic, version, initial player pose and every config setting a key
+ * changes, then one record per
+ * tick with input: varint (ticks since the previous record + 1), varint key
+ * count and the keys as bytes. A 0 ends the records and is followed by the
+ * varint total number of ticks.
+ *
+ * @author Pavel Vavruska
+ */
+public class InputRecorder implements Closeable {
+
+    static final int MAGIC = 0x52434950; // RCIP
+    static final int VERSION = 2; // 1 did not store the settings toggled by f, r, c, i and u
+
+    private final DataOutputStream out;
+    private long lastRecordTick = -1;
+    private long ticks = 0;
+
+    public InputRecorder(File file, Player player, Config config) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeDouble(player.getX());
+        out.writeDouble(player.getY());
+        out.writeDouble(player.getAngle());
+        out.writeDouble(player.getVelocityX());
+        out.writeDouble(player.getVelocityY());
+        out.writeDouble(player.getVelocityAngle());
+        out.writeDouble(config.getFov());
+        out.writeBoolean(config.isPerspectiveCorrectionOn());
+        out.writeBoolean(config.isMetricOn());
+        out.writeByte(config.getTraversal().ordinal());
+        out.writeBoolean(config.isFloorCastingOn());
+        out.writeBoolean(config.isDynamicResolutionOn());
+        out.writeBoolean(config.isMipmappingOn());
+        out.writeBoolean(config.isTemporalReuseOn());
+        out.writeBoolean(config.isFpsLimiterOn());
+    }
+
+    /**
+     * Records the keys of the next tick, ticks are numbered from 0.
+     */
+    public synchronized void recordTick(char[] keys, int count) throws IOException {
+        long tick = ticks++;
+        int bound = 0;
+        for (int i = 0; i < count; i++) {
+            if (Controls.isBound(keys[i])) {
+                bound++;
+            }
+        }
+        if (bound == 0) {
+            return;
+        }
+        writeVarLong(tick - lastRecordTick);
+        writeVarLong(bound);
+        for (int i = 0; i < count; i++) {
+            if (Controls.isBound(keys[i])) {
+                out.writeByte(keys[i]);
+            }
+        }
+        lastRecordTick = tick;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        writeVarLong(0);
+        writeVarLong(ticks);
+        out.close();
+    }
+
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.input;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import raycaster.models.Config;
+import raycaster.models.Player;
+
+/**
+ * Recording written by {@link InputRecorder}, fed back tick by tick.
+ *
+ * @author Pavel Vavruska
+ */
+public class InputReplay {
+
+    private final double[] initialPlayer = new double[6];
+    private final double fov;
+    private final boolean perspectiveCorrectionOn;
+    private final boolean metricOn;
+    private final Config.Traversal traversal;
+    private final boolean floorCastingOn;
+    private final boolean dynamicResolutionOn;
+    private final boolean mipmappingOn;
+    private final boolean temporalReuseOn;
+    private final boolean fpsLimiterOn;
+
+    private final long[] recordTicks;
+    private final int[] recordOffsets; // recordOffsets[i]..recordOffsets[i + 1] are keys of record i
+    private final char[] keys;
+    private final long ticks;
+
+    private int nextRecord = 0;
+    private long nextTick = 0;
+
+    public InputReplay(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != InputRecorder.MAGIC) {
+                throw new IOException(file + " is not an input recording");
+            }
+            int version = in.readUnsignedByte();
+            if (version != InputRecorder.VERSION) {
+                // a version 1 recording misses settings its keys toggle, it would replay differently
+                throw new IOException(file + ": unsupported recording version " + version
+                        + ", expected " + InputRecorder.VERSION);
+            }
+            for (int i = 0; i < initialPlayer.length; i++) {
+                initialPlayer[i] = in.readDouble();
+            }
+            fov = in.readDouble();
+            perspectiveCorrectionOn = in.readBoolean();
+            metricOn = in.readBoolean();
+            int traversalOrdinal = in.readUnsignedByte();
+            Config.Traversal[] traversals = Config.Traversal.values();
+            traversal = (traversalOrdinal < traversals.length) ? traversals[traversalOrdinal] : Config.Traversal.MARCHING;
+            floorCastingOn = in.readBoolean();
+            dynamicResolutionOn = in.readBoolean();
+            mipmappingOn = in.readBoolean();
+            temporalReuseOn = in.readBoolean();
+            fpsLimiterOn = in.readBoolean();
+
+            long[] recordTicks = new long[64];
+            int[] recordOffsets = new int[65];
+            char[] keys = new char[256];
+            int records = 0;
+            long tick = -1;
+            long delta;
+            while ((delta = readVarLong(in)) != 0) {
+                tick += delta;
+                int count = (int) readVarLong(in);
+                if (records + 1 >= recordTicks.length) {
+                    recordTicks = Arrays.copyOf(recordTicks, recordTicks.length * 2);
+                    recordOffsets = Arrays.copyOf(recordOffsets, recordOffsets.length * 2);
+                }
+                int offset = recordOffsets[records];
+                if (offset + count > keys.length) {
+                    keys = Arrays.copyOf(keys, Math.max(keys.length * 2, offset + count));
+                }
+                for (int i = 0; i < count; i++) {
+                    keys[offset + i] = (char) in.readUnsignedByte();
+                }
+                recordTicks[records] = tick;
+                recordOffsets[++records] = offset + count;
+            }
+            this.ticks = readVarLong(in);
+            this.recordTicks = Arrays.copyOf(recordTicks, records);
+            this.recordOffsets = Arrays.copyOf(recordOffsets, records + 1);
+            this.keys = Arrays.copyOf(keys, recordOffsets[records]);
+        }
+    }
+
+    /**
+     * Puts the player and config to the state the recording started from.
+     */
+    public void applyInitialState(Player player, Config config) {
+        player.setX(initialPlayer[0]);
+        player.setY(initialPlayer[1]);
+        player.setAngle(initialPlayer[2]);
+        player.setVelocityX(initialPlayer[3]);
+        player.setVelocityY(initialPlayer[4]);
+        player.setVelocityAngle(initialPlayer[5]);
+        config.setFov(fov);
+        config.setPerspectiveCorrectionOn(perspectiveCorrectionOn);
+        config.setMetricOn(metricOn);
+        config.setTraversal(traversal);
+        config.setFloorCastingOn(floorCastingOn);
+        config.setDynamicResolutionOn(dynamicResolutionOn);
+        config.setMipmappingOn(mipmappingOn);
+        config.setTemporalReuseOn(temporalReuseOn);
+        config.setFpsLimiterOn(fpsLimiterOn);
+    }
+
+    /**
+     * Keys of the next tick.
+     *
+     * @return number of keys put into the buffer
+     */
+    public int nextTick(char[] buffer) {
+        long tick = nextTick++;
+        if (nextRecord >= recordTicks.length || recordTicks[nextRecord] != tick) {
+            return 0;
+        }
+        int offset = recordOffsets[nextRecord];
+        int count = Math.min(recordOffsets[nextRecord + 1] - offset, buffer.length);
+        System.arraycopy(keys, offset, buffer, 0, count);
+        nextRecord++;
+        return count;
+    }
+
+    public boolean isFinished() {
+        return nextTick >= ticks;
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (shift > 63) {
+                throw new IOException("Malformed varint in input recording");
+            }
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
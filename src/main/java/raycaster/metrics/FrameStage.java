@@ -0,0 +1,63 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.metrics;
+
+/**
+ * Stages of a frame that are timed separately.
+ *
+ * @author Pavel Vavruska
+ */
+public enum FrameStage {
+    /** whole frame, from the start of one frame to the start of the next */
+    FRAME(false),
+    MINIMAP(false),
+    /** floor and ceiling, the background image or floor casting */
+    BACKGROUND(false),
+    /** ray casting, timed per render worker */
+    RAY_CAST(true),
+    /** texturing of the cast columns, timed per render worker */
+    TEXTURE_FILL(true),
+    /** culling, sorting and drawing of the entities */
+    SPRITES(false),
+    /** time a render worker spent on the frame */
+    WORKER_BUSY(true),
+    /** time a render worker waited for the others to finish the frame */
+    WORKER_IDLE(true),
+    /** scaling of a frame rendered below the full resolution */
+    UPSCALE(false),
+    /** player, minimap overlay and metrics drawn over the view */
+    COMPOSE(false),
+    /** copy of the finished frame to the screen */
+    PRESENT(false);
+
+    private final boolean perWorker;
+
+    FrameStage(boolean perWorker) {
+        this.perWorker = perWorker;
+    }
+
+    public boolean isPerWorker() {
+        return perWorker;
+    }
+}
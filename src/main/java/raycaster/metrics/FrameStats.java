@@ -0,0 +1,119 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Timings of all {@link FrameStage}s, per render worker for the stages that
+ * run on the workers. Each stage and worker can be published as an MBean
+ * named raycaster:type=FrameStats,stage=STAGE[,worker=N].
+ *
+ * @author Pavel Vavruska
+ */
+public class FrameStats {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final StageTimings[][] timings;
+    private final int workerCount;
+    private final List<ObjectName> registeredNames = new ArrayList<>();
+
+    public FrameStats(int workerCount) {
+        this(workerCount, DEFAULT_CAPACITY);
+    }
+
+    public FrameStats(int workerCount, int capacity) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Worker count must be positive: " + workerCount);
+        }
+        this.workerCount = workerCount;
+        FrameStage[] stages = FrameStage.values();
+        timings = new StageTimings[stages.length][];
+        for (FrameStage stage : stages) {
+            StageTimings[] stageTimings = new StageTimings[stage.isPerWorker() ? workerCount : 1];
+            for (int worker = 0; worker < stageTimings.length; worker++) {
+                stageTimings[worker] = new StageTimings(capacity);
+            }
+            timings[stage.ordinal()] = stageTimings;
+        }
+    }
+
+    public void record(FrameStage stage, long nanos) {
+        timings[stage.ordinal()][0].record(nanos);
+    }
+
+    public void record(FrameStage stage, int worker, long nanos) {
+        timings[stage.ordinal()][worker].record(nanos);
+    }
+
+    public StageTimings get(FrameStage stage) {
+        return timings[stage.ordinal()][0];
+    }
+
+    public StageTimings get(FrameStage stage, int worker) {
+        return timings[stage.ordinal()][worker];
+    }
+
+    public int getWorkerCount() {
+        return workerCount;
+    }
+
+    /**
+     * Publishes the timings on the platform MBean server.
+     */
+    public synchronized void registerMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (FrameStage stage : FrameStage.values()) {
+            StageTimings[] stageTimings = timings[stage.ordinal()];
+            for (int worker = 0; worker < stageTimings.length; worker++) {
+                String name = "raycaster:type=FrameStats,stage=" + stage.name();
+                if (stage.isPerWorker()) {
+                    name += ",worker=" + worker;
+                }
+                ObjectName objectName = new ObjectName(name);
+                if (server.isRegistered(objectName)) {
+                    server.unregisterMBean(objectName);
+                }
+                server.registerMBean(stageTimings[worker], objectName);
+                registeredNames.add(objectName);
+            }
+        }
+    }
+
+    public synchronized void unregisterMBeans() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName objectName : registeredNames) {
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        }
+        registeredNames.clear();
+    }
+}
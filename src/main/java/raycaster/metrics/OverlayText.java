@@ -0,0 +1,90 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.metrics;
+
+/**
+ * Line of overlay text built again in every frame. The characters go into a
+ * reused StringBuilder and a new String is created only when the text
+ * differs from the last frame, so a steady overlay allocates nothing.
+ *
+ * @author Pavel Vavruska
+ */
+public final class OverlayText {
+
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L};
+
+    private final StringBuilder builder = new StringBuilder(32);
+    private String text = "";
+
+    public OverlayText clear() {
+        builder.setLength(0);
+        return this;
+    }
+
+    public OverlayText append(String value) {
+        builder.append(value);
+        return this;
+    }
+
+    public OverlayText append(long value) {
+        builder.append(value);
+        return this;
+    }
+
+    /**
+     * Appends a number rounded half up to a fixed number of decimals, like %.Nf.
+     *
+     * @param decimals 0 to 5
+     */
+    public OverlayText append(double value, int decimals) {
+        if (decimals < 0 || decimals >= POWERS_OF_TEN.length) {
+            throw new IllegalArgumentException("Decimals must be 0 to " + (POWERS_OF_TEN.length - 1) + ": " + decimals);
+        }
+        long scale = POWERS_OF_TEN[decimals];
+        long scaled = Math.round(Math.abs(value) * scale);
+        if (value < 0) {
+            builder.append('-');
+        }
+        builder.append(scaled / scale);
+        if (decimals > 0) {
+            builder.append('.');
+            long fraction = scaled % scale;
+            for (long digit = scale / 10; digit > fraction && digit > 1; digit /= 10) {
+                builder.append('0');
+            }
+            builder.append(fraction);
+        }
+        return this;
+    }
+
+    /**
+     * @return the text, the same instance as long as it does not change
+     */
+    public String toText() {
+        if (!text.contentEquals(builder)) {
+            text = builder.toString();
+        }
+        return text;
+    }
+}
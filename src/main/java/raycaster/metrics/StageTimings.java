@@ -0,0 +1,128 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ring buffer of the most recent timings of one frame stage, in nanoseconds.
+ * There must be a single writer thread, readers on other threads never block
+ * it. A reader racing the writer may see a timing of the next frame in place
+ * of the oldest one, which does not matter for the statistics.
+ *
+ * @author Pavel Vavruska
+ */
+public class StageTimings implements StageTimingsMBean {
+
+    private final AtomicLongArray timings;
+    private final int mask;
+    // only the writer thread increments it, the volatile write publishes the timing
+    private volatile long count;
+
+    /**
+     * @param capacity number of timings kept, rounded up to a power of two
+     */
+    public StageTimings(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        timings = new AtomicLongArray(size);
+        mask = size - 1;
+    }
+
+    public void record(long nanos) {
+        long index = count;
+        timings.lazySet((int) (index & mask), nanos);
+        count = index + 1;
+    }
+
+    /**
+     * Copies the most recent timings, oldest first.
+     *
+     * @return number of timings copied, at most the length of the array
+     */
+    public int copyRecent(long[] into) {
+        long end = count;
+        int copied = (int) Math.min(Math.min(end, timings.length()), into.length);
+        long start = end - copied;
+        for (int i = 0; i < copied; i++) {
+            into[i] = timings.get((int) ((start + i) & mask));
+        }
+        return copied;
+    }
+
+    /**
+     * @param percentile 0 to 100
+     * @return timing at the percentile of the recent timings, 0 when nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        long[] recent = new long[timings.length()];
+        int copied = copyRecent(recent);
+        if (copied == 0) {
+            return 0L;
+        }
+        Arrays.sort(recent, 0, copied);
+        int index = (int) Math.ceil(percentile / 100 * copied) - 1;
+        return recent[Math.max(0, Math.min(copied - 1, index))];
+    }
+
+    public long getLastNanos() {
+        long end = count;
+        return (end == 0) ? 0L : timings.get((int) ((end - 1) & mask));
+    }
+
+    public int getCapacity() {
+        return timings.length();
+    }
+
+    @Override
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public double getLastMillis() {
+        return getLastNanos() / 1e6;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return getPercentileNanos(50) / 1e6;
+    }
+
+    @Override
+    public double getP99Millis() {
+        return getPercentileNanos(99) / 1e6;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return getPercentileNanos(100) / 1e6;
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.models;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sequence of player poses for scripted rendering. Poses between the key
+ * poses are interpolated linearly, the angle along the shorter arc.
+ *
+ * @author Pavel Vavruska
+ */
+public class CameraPath {
+
+    private final List<Player> poses;
+
+    public CameraPath(List<Player> poses) {
+        if (poses.isEmpty()) {
+            throw new IllegalArgumentException("Camera path needs at least one pose");
+        }
+        this.poses = Collections.unmodifiableList(new ArrayList<>(poses));
+    }
+
+    /**
+     * Walk through the corridors of the built-in {@link Map}.
+     */
+    public static CameraPath defaultPath() {
+        List<Player> poses = new ArrayList<>();
+        poses.add(new Player(3.5, 3.5, 90));
+        poses.add(new Player(3.5, 15.5, 0));
+        poses.add(new Player(10.5, 15.5, 270));
+        poses.add(new Player(10.5, 3.5, 180));
+        poses.add(new Player(8.5, 3.5, 100));
+        return new CameraPath(poses);
+    }
+
+    /**
+     * Reads one pose per line as "x y angle", separated by spaces or commas.
+     * Empty lines and lines starting with # are skipped.
+     */
+    public static CameraPath load(File file) throws IOException {
+        List<Player> poses = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] values = line.split("[\\s,]+");
+                if (values.length != 3) {
+                    throw new IOException(file + ":" + lineNumber + ": expected x y angle");
+                }
+                try {
+                    poses.add(new Player(Double.parseDouble(values[0]), Double.parseDouble(values[1]),
+                            Double.parseDouble(values[2])));
+                } catch (NumberFormatException e) {
+                    throw new IOException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        if (poses.isEmpty()) {
+            throw new IOException(file + ": no poses");
+        }
+        return new CameraPath(poses);
+    }
+
+    /**
+     * Moves the player to the pose of a frame, the path is spread evenly over all frames.
+     */
+    public void applyPose(int frame, int frames, Player player) {
+        double position = (frames <= 1) ? 0 : (double) frame * (poses.size() - 1) / (frames - 1);
+        int index = (int) position;
+        if (index >= poses.size() - 1) {
+            Player last = poses.get(poses.size() - 1);
+            player.setX(last.getX());
+            player.setY(last.getY());
+            player.setAngle(last.getAngle());
+            return;
+        }
+        double fraction = position - index;
+        player.interpolate(poses.get(index), poses.get(index + 1), fraction);
+    }
+
+    public List<Player> getPoses() {
+        return poses;
+    }
+
+    public int size() {
+        return poses.size();
+    }
+}
@@ -29,10 +29,32 @@ package raycaster.models;
  * @author Pavel Vavruska
  */
 public class Config {
+
+    /**
+     * Ray traversal engines, selectable at runtime
+     */
+    public enum Traversal {
+        MARCHING,
+        DDA,
+        FIXED_POINT
+    }
+
     private double fov;
     private boolean perspectiveCorrectionOn;
     private boolean metricOn;
-    private boolean fpsLimiterOn;
+    private boolean fpsLimiterOn = Boolean.getBoolean("raycaster.fpsLimiter");
+    private int maxFps = Integer.getInteger("raycaster.maxFps", 60);
+    private int tickRate = Integer.getInteger("raycaster.tickRate", 60);
+    private boolean dynamicResolutionOn = Boolean.getBoolean("raycaster.dynamicResolution");
+    private double frameBudgetMillis = 1000D / 60;
+    private boolean floorCastingOn = Boolean.getBoolean("raycaster.floorCasting");
+    private boolean mipmappingOn = Boolean.parseBoolean(System.getProperty("raycaster.mipmapping", "true"));
+    private boolean temporalReuseOn = Boolean.parseBoolean(System.getProperty("raycaster.temporalReuse", "true"));
+    private Traversal traversal = Traversal.MARCHING;
+    private int renderThreads = Integer.getInteger("raycaster.threads", Runtime.getRuntime().availableProcessors());
+    private boolean activeRenderingOn = Boolean.parseBoolean(System.getProperty("raycaster.activeRendering", "true"));
+    private int presentBuffers = Integer.getInteger("raycaster.presentBuffers", 2);
+    private int version;
 
     public Config(double fov, boolean perspectiveCorrectionOn, boolean metricOn) {
         this.fov = fov;
@@ -46,6 +68,7 @@ public class Config {
 
     public void setFov(double fov) {
         this.fov = fov;
+        version++;
     }
 
     public boolean isPerspectiveCorrectionOn() {
@@ -54,6 +77,7 @@ public class Config {
 
     public void setPerspectiveCorrectionOn(boolean perspectiveCorrectionOn) {
         this.perspectiveCorrectionOn = perspectiveCorrectionOn;
+        version++;
     }
 
     public boolean isMetricOn() {
@@ -62,6 +86,7 @@ public class Config {
 
     public void setMetricOn(boolean metricOn) {
         this.metricOn = metricOn;
+        version++;
     }
 
     public boolean isFpsLimiterOn() {
@@ -70,5 +95,130 @@ public class Config {
 
     public void setFpsLimiterOn(boolean fpsLimiterOn) {
         this.fpsLimiterOn = fpsLimiterOn;
+        version++;
+    }
+
+    public int getMaxFps() {
+        return maxFps;
+    }
+
+    public void setMaxFps(int maxFps) {
+        this.maxFps = maxFps;
+        version++;
+    }
+
+    /**
+     * @return simulation ticks per second
+     */
+    public int getTickRate() {
+        return tickRate;
+    }
+
+    public void setTickRate(int tickRate) {
+        this.tickRate = tickRate;
+        version++;
+    }
+
+    public boolean isDynamicResolutionOn() {
+        return dynamicResolutionOn;
+    }
+
+    public void setDynamicResolutionOn(boolean dynamicResolutionOn) {
+        this.dynamicResolutionOn = dynamicResolutionOn;
+        version++;
+    }
+
+    /**
+     * @return render time per frame the dynamic resolution aims for
+     */
+    public double getFrameBudgetMillis() {
+        return frameBudgetMillis;
+    }
+
+    public void setFrameBudgetMillis(double frameBudgetMillis) {
+        this.frameBudgetMillis = frameBudgetMillis;
+        version++;
+    }
+
+    /**
+     * @return true for textured floor and ceiling, false for the background image
+     */
+    public boolean isFloorCastingOn() {
+        return floorCastingOn;
+    }
+
+    public void setFloorCastingOn(boolean floorCastingOn) {
+        this.floorCastingOn = floorCastingOn;
+        version++;
+    }
+
+    public boolean isMipmappingOn() {
+        return mipmappingOn;
+    }
+
+    public void setMipmappingOn(boolean mipmappingOn) {
+        this.mipmappingOn = mipmappingOn;
+        version++;
+    }
+
+    /**
+     * @return true when unchanged frames are not rendered again and a turning view re-casts only its new columns
+     */
+    public boolean isTemporalReuseOn() {
+        return temporalReuseOn;
+    }
+
+    public void setTemporalReuseOn(boolean temporalReuseOn) {
+        this.temporalReuseOn = temporalReuseOn;
+        version++;
+    }
+
+    public int getRenderThreads() {
+        return renderThreads;
+    }
+
+    public void setRenderThreads(int renderThreads) {
+        this.renderThreads = renderThreads;
+        version++;
+    }
+
+    /**
+     * @return true to present frames from the game loop through a buffer strategy, false for Swing repaints
+     */
+    public boolean isActiveRenderingOn() {
+        return activeRenderingOn;
+    }
+
+    public void setActiveRenderingOn(boolean activeRenderingOn) {
+        this.activeRenderingOn = activeRenderingOn;
+        version++;
+    }
+
+    /**
+     * @return number of buffers of the buffer strategy, 2 for double and 3 for triple buffering
+     */
+    public int getPresentBuffers() {
+        return presentBuffers;
+    }
+
+    public void setPresentBuffers(int presentBuffers) {
+        this.presentBuffers = presentBuffers;
+        version++;
+    }
+
+    public Traversal getTraversal() {
+        return traversal;
+    }
+
+    public void setTraversal(Traversal traversal) {
+        this.traversal = traversal;
+        version++;
+    }
+
+    /**
+     * @return number of changes made to the settings, a renderer compares it to spot changed settings
+     */
+    public int getVersion() {
+        return version;
     }
 }
@@ -0,0 +1,95 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.models;
+
+/**
+ * Free-standing object drawn as a billboard facing the camera. The texture is
+ * one of the object textures, the same ones the transparent map tiles use.
+ * Changes are counted by the {@link EntityGrid} the entity was added to, so
+ * renderers redraw a reused frame; a moved entity still needs
+ * {@link EntityGrid#rebuild()} to be found in its new cell.
+ *
+ * @author Pavel Vavruska
+ */
+public class Entity {
+
+    private double x;
+    private double y;
+    private int texture;
+    // grid the entity was added to, told about every change
+    private EntityGrid entityGrid;
+
+    public Entity(double x, double y, int texture) {
+        this.x = x;
+        this.y = y;
+        this.texture = texture;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public void setX(double x) {
+        if (x != this.x) {
+            this.x = x;
+            changed();
+        }
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public void setY(double y) {
+        if (y != this.y) {
+            this.y = y;
+            changed();
+        }
+    }
+
+    public int getTexture() {
+        return texture;
+    }
+
+    public void setTexture(int texture) {
+        if (texture != this.texture) {
+            this.texture = texture;
+            changed();
+        }
+    }
+
+    EntityGrid getEntityGrid() {
+        return entityGrid;
+    }
+
+    void setEntityGrid(EntityGrid entityGrid) {
+        this.entityGrid = entityGrid;
+    }
+
+    private void changed() {
+        if (entityGrid != null) {
+            entityGrid.changed();
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Entities of a map bucketed into a uniform grid of square cells, so the
+ * entities near the camera are found without looking at all of them. The
+ * cells are linked lists of entity indices kept in int arrays. Entities that
+ * moved are put into their new cells by {@link #rebuild()}. Every change
+ * of the grid or of its entities bumps the version, which tells the
+ * renderers that a reused frame is stale.
+ *
+ * @author Pavel Vavruska
+ */
+public class EntityGrid {
+
+    public static final int DEFAULT_CELL_SIZE = 4;
+
+    private final int cellSize;
+    private final int cellsX;
+    private final int cellsY;
+    private final int[] cellHeads;
+    private final List<Entity> entities = new ArrayList<>();
+    private int[] nextInCell = new int[16];
+    private long version;
+
+    /**
+     * @param cellSize edge of a cell in map tiles
+     */
+    public EntityGrid(Map map, int cellSize) {
+        if (cellSize < 1) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.cellsX = (map.getSizeX() + cellSize - 1) / cellSize;
+        this.cellsY = (map.getSizeY() + cellSize - 1) / cellSize;
+        this.cellHeads = new int[cellsX * cellsY];
+        Arrays.fill(cellHeads, -1);
+    }
+
+    /**
+     * Places entities with random object textures on random empty tiles.
+     */
+    public static EntityGrid scatter(Map map, int count, long seed) {
+        EntityGrid entityGrid = new EntityGrid(map, DEFAULT_CELL_SIZE);
+        Random random = new Random(seed);
+        int attempts = 0;
+        while (entityGrid.size() < count && attempts++ < count * 100) {
+            double x = random.nextDouble() * map.getSizeX();
+            double y = random.nextDouble() * map.getSizeY();
+            if (map.getTile((int) x, (int) y) == -1) {
+                entityGrid.add(new Entity(x, y, random.nextInt(8)));
+            }
+        }
+        return entityGrid;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the entity is already in this grid, it would be drawn twice, or in
+     *                                  another grid, only one of them would count its changes
+     */
+    public void add(Entity entity) {
+        if (entity.getEntityGrid() == this) {
+            throw new IllegalArgumentException("Entity is already in this grid");
+        }
+        if (entity.getEntityGrid() != null) {
+            throw new IllegalArgumentException("Entity is already in another grid");
+        }
+        entity.setEntityGrid(this);
+        int index = entities.size();
+        entities.add(entity);
+        if (index == nextInCell.length) {
+            nextInCell = Arrays.copyOf(nextInCell, index * 2);
+        }
+        link(index);
+        version++;
+    }
+
+    public void clear() {
+        for (Entity entity : entities) {
+            entity.setEntityGrid(null);
+        }
+        entities.clear();
+        Arrays.fill(cellHeads, -1);
+        version++;
+    }
+
+    /**
+     * Moves all entities into the cells of their current positions.
+     */
+    public void rebuild() {
+        Arrays.fill(cellHeads, -1);
+        for (int index = 0; index < entities.size(); index++) {
+            link(index);
+        }
+        version++;
+    }
+
+    void changed() {
+        version++;
+    }
+
+    private void link(int index) {
+        Entity entity = entities.get(index);
+        int cell = cellY(entity.getY()) * cellsX + cellX(entity.getX());
+        nextInCell[index] = cellHeads[cell];
+        cellHeads[cell] = index;
+    }
+
+    private int cellX(double x) {
+        return Math.max(0, Math.min(cellsX - 1, (int) Math.floor(x / cellSize)));
+    }
+
+    private int cellY(double y) {
+        return Math.max(0, Math.min(cellsY - 1, (int) Math.floor(y / cellSize)));
+    }
+
+    /**
+     * Collects the entities of all cells that overlap the rectangle, they may
+     * lie outside of it by up to one cell.
+     *
+     * @param out receives entity indices, must have room for {@link #size()} of them
+     * @return number of indices collected
+     */
+    public int query(double minX, double minY, double maxX, double maxY, int[] out) {
+        int count = 0;
+        int lastCellX = cellX(maxX);
+        int lastCellY = cellY(maxY);
+        for (int cellY = cellY(minY); cellY <= lastCellY; cellY++) {
+            for (int cellX = cellX(minX); cellX <= lastCellX; cellX++) {
+                for (int index = cellHeads[cellY * cellsX + cellX]; index >= 0; index = nextInCell[index]) {
+                    out[count++] = index;
+                }
+            }
+        }
+        return count;
+    }
+
+    public Entity get(int index) {
+        return entities.get(index);
+    }
+
+    public int size() {
+        return entities.size();
+    }
+
+    /**
+     * @return number of changes made by add, clear and rebuild
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+}
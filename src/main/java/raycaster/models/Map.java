@@ -23,18 +23,40 @@
  */
 package raycaster.models;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
 /**
+ * Tile map, -1 is an empty tile, 0 to 9 are transparent objects and 10 and
+ * more are solid walls. Tiles are stored flat, row by row, either on the heap
+ * or in a memory-mapped map file.
+ *
+ * <p>The binary map file is big-endian: the magic "RCMP", the format version,
+ * sizeX, sizeY and the bytes per tile (1 or 2) as ints, followed by
+ * sizeX * sizeY signed tiles.
  *
  * @author Pavel Vavruska
  */
 public class Map {
 
-    private int sizeX;
-    private int sizeY;
-    private int[][] map;
+    public static final int MAGIC = 0x52434D50; // "RCMP"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 20;
 
-    public Map() {
-        this.map = new int[][]{
+    private static final int[][] DEFAULT_MAP = new int[][]{
             {10, 10, 10, 10, 10, 10, 12, 12, 12, 12, 12, 12, 12, 12, 14, 14, 14, 14, 14, 14},
             {10, -1, -1, -1, -1, 10, 12, -1, -1, -1, -1, -1, 04, 12, 14, -1, -1, -1, -1, 14},
             {10, -1, -1, -1, -1, 10, 12, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, -1, 14},
@@ -56,19 +78,221 @@ public class Map {
             {10, -1, -1, -1, -1, 10, 12, -1, -1, -1, -1, -1, -1, 12, 14, -1, -1, -1, -1, 14},
             {10, 10, 10, 10, 10, 10, 12, 12, 12, 12, 12, 12, 12, 12, 14, 14, 14, 14, 14, 14}};
 
-        this.sizeX = map.length;
-        this.sizeY = map[0].length;
+    private final int sizeX;
+    private final int sizeY;
+    private final int tileBytes;
+    // exactly one of them holds the tiles
+    private final ByteBuffer byteTiles;
+    private final ShortBuffer shortTiles;
+
+    /**
+     * The built-in map.
+     */
+    public Map() {
+        this(DEFAULT_MAP);
+    }
+
+    /**
+     * @param rows tiles indexed [y][x], all rows of the same length
+     */
+    public Map(int[][] rows) {
+        if (rows.length == 0 || rows[0].length == 0) {
+            throw new IllegalArgumentException("Map must not be empty");
+        }
+        this.sizeX = rows[0].length;
+        this.sizeY = rows.length;
+        int minTile = 0;
+        int maxTile = 0;
+        for (int[] row : rows) {
+            if (row.length != sizeX) {
+                throw new IllegalArgumentException("Map rows differ in length: " + row.length + " and " + sizeX);
+            }
+            for (int tile : row) {
+                minTile = Math.min(minTile, tile);
+                maxTile = Math.max(maxTile, tile);
+            }
+        }
+        checkSize(sizeX, sizeY);
+        if (minTile < Short.MIN_VALUE || maxTile > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Tiles must fit in 16 bits");
+        }
+        this.tileBytes = (minTile >= Byte.MIN_VALUE && maxTile <= Byte.MAX_VALUE) ? 1 : 2;
+
+        if (tileBytes == 1) {
+            byte[] tiles = new byte[sizeX * sizeY];
+            for (int y = 0; y < sizeY; y++) {
+                for (int x = 0; x < sizeX; x++) {
+                    tiles[y * sizeX + x] = (byte) rows[y][x];
+                }
+            }
+            this.byteTiles = ByteBuffer.wrap(tiles);
+            this.shortTiles = null;
+        } else {
+            short[] tiles = new short[sizeX * sizeY];
+            for (int y = 0; y < sizeY; y++) {
+                for (int x = 0; x < sizeX; x++) {
+                    tiles[y * sizeX + x] = (short) rows[y][x];
+                }
+            }
+            this.byteTiles = null;
+            this.shortTiles = ShortBuffer.wrap(tiles);
+        }
+    }
+
+    private Map(int sizeX, int sizeY, int tileBytes, ByteBuffer tiles) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.tileBytes = tileBytes;
+        this.byteTiles = (tileBytes == 1) ? tiles : null;
+        this.shortTiles = (tileBytes == 1) ? null : tiles.asShortBuffer();
+    }
+
+    private static void checkSize(long sizeX, long sizeY) {
+        if (sizeX < 1 || sizeY < 1 || sizeX * sizeY * 2 > Integer.MAX_VALUE - HEADER_SIZE) {
+            throw new IllegalArgumentException("Unsupported map size " + sizeX + "x" + sizeY);
+        }
+    }
+
+    /**
+     * Opens a binary map file or imports a text map, depending on the content.
+     */
+    public static Map load(File file) throws IOException {
+        int magic = 0;
+        if (file.length() >= HEADER_SIZE) {
+            try (DataInputStream input = new DataInputStream(new FileInputStream(file))) {
+                magic = input.readInt();
+            }
+        }
+        return (magic == MAGIC) ? open(file) : importText(file);
+    }
+
+    /**
+     * Memory-maps a binary map file, the tiles are read straight from the page cache.
+     */
+    public static Map open(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException(file + ": not a map file");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(file + ": not a map file");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + ": unsupported map version " + version);
+            }
+            int sizeX = header.getInt();
+            int sizeY = header.getInt();
+            int tileBytes = header.getInt();
+            if (tileBytes != 1 && tileBytes != 2) {
+                throw new IOException(file + ": unsupported tile size " + tileBytes);
+            }
+            try {
+                checkSize(sizeX, sizeY);
+            } catch (IllegalArgumentException e) {
+                throw new IOException(file + ": " + e.getMessage(), e);
+            }
+            long tilesLength = (long) sizeX * sizeY * tileBytes;
+            if (channel.size() < HEADER_SIZE + tilesLength) {
+                throw new IOException(file + ": truncated map file");
+            }
+            // the mapping stays valid after the channel is closed
+            return new Map(sizeX, sizeY, tileBytes, channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, tilesLength));
+        }
+    }
+
+    /**
+     * Reads a text map, one row per line with the tiles separated by commas or
+     * spaces. Empty lines and lines starting with # are skipped.
+     */
+    public static Map importText(File file) throws IOException {
+        List<int[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] values = line.split("[\\s,;]+");
+                int[] row = new int[values.length];
+                try {
+                    for (int x = 0; x < values.length; x++) {
+                        row[x] = Integer.parseInt(values[x]);
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IOException(file + ":" + lineNumber + ": " + e.getMessage(), e);
+                }
+                if (!rows.isEmpty() && row.length != rows.get(0).length) {
+                    throw new IOException(file + ":" + lineNumber + ": expected " + rows.get(0).length
+                            + " tiles, found " + row.length);
+                }
+                rows.add(row);
+            }
+        }
+        if (rows.isEmpty()) {
+            throw new IOException(file + ": no tiles");
+        }
+        try {
+            return new Map(rows.toArray(new int[rows.size()][]));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes the map in the binary format.
+     */
+    public void save(File file) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(sizeX);
+            output.writeInt(sizeY);
+            output.writeInt(tileBytes);
+            for (int y = 0; y < sizeY; y++) {
+                for (int x = 0; x < sizeX; x++) {
+                    if (tileBytes == 1) {
+                        output.writeByte(getTile(x, y));
+                    } else {
+                        output.writeShort(getTile(x, y));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return tile at the coordinates, they must be inside the map
+     * @throws IndexOutOfBoundsException when they are not, the flat buffers would read another row
+     */
+    public int getTile(int x, int y) {
+        if (x < 0 || y < 0 || x >= sizeX || y >= sizeY) {
+            throw new IndexOutOfBoundsException("Tile " + x + ", " + y + " is outside of the map " + sizeX + "x" + sizeY);
+        }
+        int index = y * sizeX + x;
+        return (byteTiles != null) ? byteTiles.get(index) : shortTiles.get(index);
     }
 
+    /**
+     * @return width of the map, the number of tiles in a row
+     */
     public int getSizeX() {
         return sizeX;
     }
 
+    /**
+     * @return height of the map, the number of rows
+     */
     public int getSizeY() {
         return sizeY;
     }
 
-    public int[][] getMap() {
-        return map;
+    public int getTileBytes() {
+        return tileBytes;
     }
 }
@@ -54,12 +54,12 @@ public class Player {
         if (checkX >= 1 && checkY >= 1 && checkX < map.getSizeX() -1  && checkY < map.getSizeY()-1) {
             int checkBothX = checkX + (checkX - (int) this.getX());
             int checkBothY = checkY + (checkY - (int) this.getY());
-            boolean collisionOnCorX = (map.getMap()[(int) this.getY()][checkBothX] >= 10
-            ) || (map.getMap()[(int) this.getY() - 1][checkBothX] >= 10
-            ) || (map.getMap()[(int) this.getY() + 1][checkBothX] >= 10);
-            boolean collisionOnCorY = (map.getMap()[checkBothY][(int) this.getX()] >= 10
-            ) || (map.getMap()[checkBothY][(int) this.getX() - 1] >= 10
-            ) || (map.getMap()[checkBothY][(int) this.getX() + 1] >= 10);
+            boolean collisionOnCorX = (map.getTile(checkBothX, (int) this.getY()) >= 10
+            ) || (map.getTile(checkBothX, (int) this.getY() - 1) >= 10
+            ) || (map.getTile(checkBothX, (int) this.getY() + 1) >= 10);
+            boolean collisionOnCorY = (map.getTile((int) this.getX(), checkBothY) >= 10
+            ) || (map.getTile((int) this.getX() - 1, checkBothY) >= 10
+            ) || (map.getTile((int) this.getX() + 1, checkBothY) >= 10);
 
             this.setX(this.getX()+this.getVelocityX());
             this.setY(this.getY()+this.getVelocityY());
@@ -110,6 +110,37 @@ public class Player {
         processViewAngle();
     }
 
+    /**
+     * Places the player between two poses, the angle along the shorter arc.
+     */
+    public void interpolate(Player from, Player to, double fraction) {
+        double angleDelta = to.getAngle() - from.getAngle();
+        angleDelta -= 360 * Math.floor((angleDelta + 180) / 360);
+        double angle = from.getAngle() + angleDelta * fraction;
+        if (angle >= 360D) {
+            angle -= 360D;
+        }
+        if (angle < 0D) {
+            angle += 360D;
+        }
+
+        this.setX(from.getX() + (to.getX() - from.getX()) * fraction);
+        this.setY(from.getY() + (to.getY() - from.getY()) * fraction);
+        this.setAngle(angle);
+    }
+
+    /**
+     * Copies position, angle and velocities of another player.
+     */
+    public void copyFrom(Player other) {
+        this.x = other.x;
+        this.y = other.y;
+        this.angle = other.angle;
+        this.velocityX = other.velocityX;
+        this.velocityY = other.velocityY;
+        this.velocityAngle = other.velocityAngle;
+    }
+
     public double getVelocityX() {
         return velocityX;
     }
@@ -0,0 +1,485 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.models;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Potentially visible set of a map. The map is divided into square cells and
+ * for every cell a bitset records which cells can be seen from any of its
+ * walkable tiles. It is built by casting beams, bundles of lines, from each
+ * cell outwards, walls stop the lines and transparent objects do not. Beams
+ * are cut exactly at the wall corners instead of being sampled, so the set is
+ * conservative: every cell a line from anywhere in the cell reaches is in it.
+ * Every visible cell also makes its neighbours visible, so billboards reaching
+ * over a cell edge are not lost. The set is saved next to the map and is
+ * rebuilt when the tiles of the map change.
+ *
+ * @author Pavel Vavruska
+ */
+public class PotentiallyVisibleSet {
+
+    public static final int MAGIC = 0x52435653; // "RCVS"
+    public static final int VERSION = 2; // 1 was built from sampled rays and could miss visible cells
+    public static final int HEADER_SIZE = 24;
+    public static final String FILE_SUFFIX = ".pvs";
+    // upper bound of cells, the bitsets of all cells take at most 2 MB
+    private static final int MAX_CELLS = 4096;
+    // beams are cut this much on the outside of wall corners, rounding never loses a line passing one
+    private static final double CLIP_TOLERANCE = 1e-9;
+
+    private final int sizeX;
+    private final int sizeY;
+    private final int cellSize;
+    private final int cellsX;
+    private final int cellsY;
+    private final int wordsPerCell;
+    private final int mapChecksum;
+    private final long[] bits;
+
+    private PotentiallyVisibleSet(int sizeX, int sizeY, int cellSize, int mapChecksum, long[] bits) {
+        this.sizeX = sizeX;
+        this.sizeY = sizeY;
+        this.cellSize = cellSize;
+        this.cellsX = (sizeX + cellSize - 1) / cellSize;
+        this.cellsY = (sizeY + cellSize - 1) / cellSize;
+        this.wordsPerCell = (cellsX * cellsY + 63) / 64;
+        this.mapChecksum = mapChecksum;
+        this.bits = (bits != null) ? bits : new long[cellsX * cellsY * wordsPerCell];
+    }
+
+    /**
+     * @return smallest cell edge that keeps the number of cells within the limit
+     */
+    public static int defaultCellSize(Map map) {
+        int cellSize = 1;
+        while (((long) (map.getSizeX() + cellSize - 1) / cellSize) * ((map.getSizeY() + cellSize - 1) / cellSize)
+                > MAX_CELLS) {
+            cellSize *= 2;
+        }
+        return cellSize;
+    }
+
+    /**
+     * Builds the set with the default cell size.
+     */
+    public static PotentiallyVisibleSet build(Map map) {
+        return build(map, defaultCellSize(map));
+    }
+
+    /**
+     * @param cellSize edge of a cell in map tiles
+     */
+    public static PotentiallyVisibleSet build(Map map, int cellSize) {
+        if (cellSize < 1) {
+            throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        }
+        PotentiallyVisibleSet pvs = new PotentiallyVisibleSet(map.getSizeX(), map.getSizeY(), cellSize,
+                checksum(map), null);
+
+        long[] visible = new long[pvs.wordsPerCell];
+        for (int cellY = 0; cellY < pvs.cellsY; cellY++) {
+            for (int cellX = 0; cellX < pvs.cellsX; cellX++) {
+                int cell = cellY * pvs.cellsX + cellX;
+                int x = cellX * cellSize;
+                int y = cellY * cellSize;
+                int tilesX = Math.min(cellSize, map.getSizeX() - x);
+                int tilesY = Math.min(cellSize, map.getSizeY() - y);
+                if (!isWalkable(map, x, y, tilesX, tilesY)) {
+                    // no tile outside of the walls, everything may be visible
+                    pvs.fill(cell);
+                    continue;
+                }
+                Arrays.fill(visible, 0L);
+                visible[cell >>> 6] |= 1L << cell;
+                // a line leaving the cell at most 45 degrees off an axis crosses the edge facing that way
+                // within one cell edge beside the cell, what it passes before is in a neighbouring cell
+                double[] alongY = beam(x - tilesY, x + tilesX + tilesY);
+                double[] alongX = beam(y - tilesX, y + tilesY + tilesX);
+                pvs.castBeam(map, false, y + tilesY, 1, alongY, visible);
+                pvs.castBeam(map, false, y - 1, -1, alongY, visible);
+                pvs.castBeam(map, true, x + tilesX, 1, alongX, visible);
+                pvs.castBeam(map, true, x - 1, -1, alongX, visible);
+                pvs.dilate(visible, cell);
+            }
+        }
+        return pvs;
+    }
+
+    /**
+     * @return beam of the lines crossing the edge between the bounds at most 45 degrees off its normal
+     */
+    private static double[] beam(double minB, double maxB) {
+        return new double[]{minB, -1, maxB, -1, maxB, 1, minB, 1};
+    }
+
+    private static boolean isWalkable(Map map, int x, int y, int tilesX, int tilesY) {
+        for (int tileY = y; tileY < y + tilesY; tileY++) {
+            for (int tileX = x; tileX < x + tilesX; tileX++) {
+                if (map.getTile(tileX, tileY) < 10) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Casts a beam, the lines cross = b + s * t with (b, s) inside a convex
+     * polygon, where t is the distance from the cell edge along the main axis
+     * and row r of tiles spans t from r to r + 1. A line passes a row when it
+     * enters and leaves it within the same run of free tiles, so in every row
+     * the beam is cut at the wall corners into one beam per run, holding
+     * exactly the lines that passed. The tiles the lines go through and the
+     * walls they stop at are marked.
+     *
+     * @param alongX true when the main axis is x and the cross axis y
+     * @param firstRow main axis index of the tiles next to the cell edge
+     * @param step 1 or -1, direction along the main axis
+     * @param beam b, s pairs of the polygon corners
+     */
+    private void castBeam(Map map, boolean alongX, int firstRow, int step, double[] beam, long[] visible) {
+        int rows = (step > 0) ? (alongX ? sizeX : sizeY) - firstRow : firstRow + 1;
+        // beams cut off in a row and the row they go on from, walked after the current one
+        ArrayDeque<double[]> beams = new ArrayDeque<>();
+        ArrayDeque<Integer> beamRows = new ArrayDeque<>();
+        int row = 0;
+        while (true) {
+            double[] passed = null;
+            if (row < rows) {
+                passed = castRow(map, alongX, firstRow + step * row, beam, row, beams, beamRows, visible);
+            }
+            if (passed != null) {
+                beam = passed;
+                row++;
+            } else if (!beams.isEmpty()) {
+                beam = beams.pop();
+                row = beamRows.pop();
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Marks the tiles the beam reaches in the row.
+     *
+     * @return lines of the beam that passed the row within one run of free
+     * tiles, the ones passing the other runs are pushed to the beams
+     */
+    private double[] castRow(Map map, boolean alongX, int mainTile, double[] beam, int row,
+                             ArrayDeque<double[]> beams, ArrayDeque<Integer> beamRows, long[] visible) {
+        double entryLow = minCross(beam, row);
+        double entryHigh = maxCross(beam, row);
+        int first = (int) Math.floor(Math.min(entryLow, minCross(beam, row + 1)));
+        int last = (int) Math.ceil(Math.max(entryHigh, maxCross(beam, row + 1))) - 1;
+        double[] passed = null;
+        int runStart = first;
+        for (int crossTile = first; crossTile <= last + 1; crossTile++) {
+            if (crossTile <= last && !isSolid(map, alongX, mainTile, crossTile)) {
+                continue;
+            }
+            if (crossTile <= last && crossTile < entryHigh && crossTile + 1 > entryLow) {
+                // lines entering the row in a wall
+                mark(alongX, mainTile, crossTile, visible);
+            }
+            // free tiles from runStart until crossTile, walls or the map edge on both sides
+            int runBegin = runStart;
+            int runEnd = crossTile;
+            runStart = crossTile + 1;
+            double[] entered = (runBegin < runEnd) ? clip(clip(beam, row, runBegin, true), row, runEnd, false) : null;
+            if (entered == null) {
+                continue;
+            }
+            // lines leaving the run sideways stop at the wall next to it
+            double low = Math.max(runBegin - 1, Math.min(minCross(entered, row), minCross(entered, row + 1)));
+            double high = Math.min(runEnd + 1, Math.max(maxCross(entered, row), maxCross(entered, row + 1)));
+            for (int tile = (int) Math.floor(low); tile < high; tile++) {
+                mark(alongX, mainTile, tile, visible);
+            }
+            double[] run = clip(clip(entered, row + 1, runBegin, true), row + 1, runEnd, false);
+            if (run == null) {
+                continue;
+            }
+            if (passed != null) {
+                beams.push(passed);
+                beamRows.push(row + 1);
+            }
+            passed = run;
+        }
+        return passed;
+    }
+
+    private static double minCross(double[] beam, int t) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int corner = 0; corner < beam.length; corner += 2) {
+            min = Math.min(min, beam[corner] + beam[corner + 1] * t);
+        }
+        return min;
+    }
+
+    private static double maxCross(double[] beam, int t) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int corner = 0; corner < beam.length; corner += 2) {
+            max = Math.max(max, beam[corner] + beam[corner + 1] * t);
+        }
+        return max;
+    }
+
+    /**
+     * Cuts the beam at the lines through the point cross = bound at distance t.
+     *
+     * @param above true to keep the lines passing at bound or above, false for at bound or below
+     * @return the part of the beam kept, null when it or the beam is empty
+     */
+    private static double[] clip(double[] beam, int t, double bound, boolean above) {
+        if (beam == null) {
+            return null;
+        }
+        int corners = beam.length / 2;
+        double[] clipped = new double[corners * 4];
+        int length = 0;
+        for (int corner = 0; corner < corners; corner++) {
+            int next = (corner + 1) % corners;
+            double b = beam[2 * corner];
+            double s = beam[2 * corner + 1];
+            double nextB = beam[2 * next];
+            double nextS = beam[2 * next + 1];
+            // distance past the bound, rounding keeps lines through the point
+            double side = above ? b + s * t - bound + CLIP_TOLERANCE : bound - b - s * t + CLIP_TOLERANCE;
+            double nextSide = above ? nextB + nextS * t - bound + CLIP_TOLERANCE : bound - nextB - nextS * t + CLIP_TOLERANCE;
+            if (side >= 0) {
+                clipped[length++] = b;
+                clipped[length++] = s;
+            }
+            if ((side >= 0) != (nextSide >= 0)) {
+                double fraction = side / (side - nextSide);
+                clipped[length++] = b + (nextB - b) * fraction;
+                clipped[length++] = s + (nextS - s) * fraction;
+            }
+        }
+        return (length >= 6) ? Arrays.copyOf(clipped, length) : null;
+    }
+
+    /**
+     * @return true for solid walls and tiles outside of the map, lines leaving the map do not come back
+     */
+    private boolean isSolid(Map map, boolean alongX, int mainTile, int crossTile) {
+        int tileX = alongX ? mainTile : crossTile;
+        int tileY = alongX ? crossTile : mainTile;
+        return tileX < 0 || tileY < 0 || tileX >= sizeX || tileY >= sizeY || map.getTile(tileX, tileY) >= 10;
+    }
+
+    private void mark(boolean alongX, int mainTile, int crossTile, long[] visible) {
+        int tileX = alongX ? mainTile : crossTile;
+        int tileY = alongX ? crossTile : mainTile;
+        if (tileX >= 0 && tileY >= 0 && tileX < sizeX && tileY < sizeY) {
+            int cell = (tileY / cellSize) * cellsX + tileX / cellSize;
+            visible[cell >>> 6] |= 1L << cell;
+        }
+    }
+
+    /**
+     * Stores the visible cells grown by their neighbours as the row of the cell.
+     */
+    private void dilate(long[] visible, int fromCell) {
+        int rowStart = fromCell * wordsPerCell;
+        for (int cellY = 0; cellY < cellsY; cellY++) {
+            for (int cellX = 0; cellX < cellsX; cellX++) {
+                int cell = cellY * cellsX + cellX;
+                if ((visible[cell >>> 6] & (1L << cell)) == 0) {
+                    continue;
+                }
+                for (int neighbourY = Math.max(0, cellY - 1); neighbourY <= Math.min(cellsY - 1, cellY + 1); neighbourY++) {
+                    for (int neighbourX = Math.max(0, cellX - 1); neighbourX <= Math.min(cellsX - 1, cellX + 1); neighbourX++) {
+                        int neighbour = neighbourY * cellsX + neighbourX;
+                        bits[rowStart + (neighbour >>> 6)] |= 1L << neighbour;
+                    }
+                }
+            }
+        }
+    }
+
+    private void fill(int fromCell) {
+        int cellCount = cellsX * cellsY;
+        for (int cell = 0; cell < cellCount; cell++) {
+            bits[fromCell * wordsPerCell + (cell >>> 6)] |= 1L << cell;
+        }
+    }
+
+    /**
+     * @return whether anything on the target tile may be seen from the tile,
+     * true when the tile is outside of the map
+     */
+    public boolean isVisible(int fromX, int fromY, int toX, int toY) {
+        if (fromX < 0 || fromY < 0 || fromX >= sizeX || fromY >= sizeY
+                || toX < 0 || toY < 0 || toX >= sizeX || toY >= sizeY) {
+            return true;
+        }
+        int fromCell = (fromY / cellSize) * cellsX + fromX / cellSize;
+        int toCell = (toY / cellSize) * cellsX + toX / cellSize;
+        return (bits[fromCell * wordsPerCell + (toCell >>> 6)] & (1L << toCell)) != 0;
+    }
+
+    /**
+     * @return number of cells visible from the cell of the tile
+     */
+    public int countVisibleCells(int fromX, int fromY) {
+        int fromCell = (fromY / cellSize) * cellsX + fromX / cellSize;
+        int count = 0;
+        for (int word = 0; word < wordsPerCell; word++) {
+            count += Long.bitCount(bits[fromCell * wordsPerCell + word]);
+        }
+        return count;
+    }
+
+    /**
+     * @return whether the set was built for the tiles of the map
+     */
+    public boolean matches(Map map) {
+        return map.getSizeX() == sizeX && map.getSizeY() == sizeY && checksum(map) == mapChecksum;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    private static int checksum(Map map) {
+        CRC32 crc = new CRC32();
+        for (int y = 0; y < map.getSizeY(); y++) {
+            for (int x = 0; x < map.getSizeX(); x++) {
+                int tile = map.getTile(x, y);
+                crc.update(tile >>> 8);
+                crc.update(tile);
+            }
+        }
+        return (int) crc.getValue();
+    }
+
+    /**
+     * @return file the set of the map file is kept in
+     */
+    public static File fileFor(File mapFile) {
+        return new File(mapFile.getPath() + FILE_SUFFIX);
+    }
+
+    /**
+     * Loads the set saved next to the map file. When there is none or it
+     * belongs to other tiles, the set is built and saved there.
+     */
+    public static PotentiallyVisibleSet loadOrBuild(Map map, File mapFile) throws IOException {
+        File file = fileFor(mapFile);
+        if (file.isFile() && !isOutdated(file)) {
+            PotentiallyVisibleSet pvs = load(file);
+            if (pvs.matches(map)) {
+                return pvs;
+            }
+        }
+        PotentiallyVisibleSet pvs = build(map);
+        pvs.save(file);
+        return pvs;
+    }
+
+    /**
+     * @return the set saved next to the map file, null when there is none for these tiles
+     */
+    public static PotentiallyVisibleSet loadIfPresent(Map map, File mapFile) throws IOException {
+        File file = fileFor(mapFile);
+        if (!file.isFile() || isOutdated(file)) {
+            return null;
+        }
+        PotentiallyVisibleSet pvs = load(file);
+        return pvs.matches(map) ? pvs : null;
+    }
+
+    /**
+     * @return whether the file holds a set of an older version, which is built again instead of loaded
+     */
+    private static boolean isOutdated(File file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new FileInputStream(file))) {
+            return file.length() >= HEADER_SIZE && input.readInt() == MAGIC && input.readInt() < VERSION;
+        }
+    }
+
+    public static PotentiallyVisibleSet load(File file) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+             FileChannel channel = randomAccessFile.getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // read the whole header
+            }
+            header.flip();
+            if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+                throw new IOException(file + ": not a visibility file");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException(file + ": unsupported visibility version " + version);
+            }
+            int sizeX = header.getInt();
+            int sizeY = header.getInt();
+            int cellSize = header.getInt();
+            int mapChecksum = header.getInt();
+            if (sizeX < 1 || sizeY < 1 || cellSize < 1) {
+                throw new IOException(file + ": invalid size " + sizeX + "x" + sizeY + " / " + cellSize);
+            }
+            PotentiallyVisibleSet pvs = new PotentiallyVisibleSet(sizeX, sizeY, cellSize, mapChecksum, null);
+            if (channel.size() < HEADER_SIZE + pvs.bits.length * 8L) {
+                throw new IOException(file + ": truncated visibility file");
+            }
+            pvs.readBits(channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, pvs.bits.length * 8L));
+            return pvs;
+        }
+    }
+
+    private void readBits(ByteBuffer buffer) {
+        buffer.asLongBuffer().get(bits);
+    }
+
+    public void save(File file) throws IOException {
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(sizeX);
+            output.writeInt(sizeY);
+            output.writeInt(cellSize);
+            output.writeInt(mapChecksum);
+            for (long word : bits) {
+                output.writeLong(word);
+            }
+        }
+    }
+}
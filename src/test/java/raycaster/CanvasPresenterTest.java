@@ -0,0 +1,46 @@
+package raycaster;
+
+import java.awt.image.BufferedImage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import raycaster.engine.FrameBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CanvasPresenterTest {
+
+    /**
+     * Nothing is presented before the canvas is on the screen, and only double
+     * or triple buffering is accepted
+     */
+    @Test
+    @DisplayName("CanvasPresenter waits for the canvas and checks the buffer count")
+    public void presentBeforeDisplay() {
+        CanvasPresenter presenter = new CanvasPresenter(64, 48, 3);
+        assertEquals(64, presenter.getCanvas().getPreferredSize().width);
+        assertTrue(presenter.isDamaged());
+        assertFalse(presenter.present(new BufferedImage(64, 48, BufferedImage.TYPE_INT_RGB)));
+        assertTrue(presenter.isDamaged());
+
+        for (int buffers : new int[]{1, 4}) {
+            try {
+                new CanvasPresenter(64, 48, buffers);
+                fail("accepted " + buffers + " buffers");
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Frame buffers for the screen can always be written through their int[]
+     */
+    @Test
+    @DisplayName("CanvasPresenter creates TYPE_INT_RGB frame buffers")
+    public void compatibleFrameBuffer() {
+        FrameBuffer frameBuffer = CanvasPresenter.createFrameBuffer(32, 16);
+        assertEquals(BufferedImage.TYPE_INT_RGB, frameBuffer.getImage().getType());
+        assertEquals(32 * 16, frameBuffer.getPixels().length);
+    }
+}
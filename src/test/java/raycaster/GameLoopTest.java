@@ -0,0 +1,90 @@
+package raycaster;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import raycaster.models.Config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameLoopTest {
+
+    /**
+     * The number of ticks follows the wall clock, not the number of frames
+     */
+    @Test
+    @DisplayName("GameLoop ticks at a fixed rate and limits the frame rate")
+    public void fixedTickRate() throws InterruptedException {
+        Config config = new Config(90, true, false);
+        config.setTickRate(100);
+        config.setMaxFps(20);
+        config.setFpsLimiterOn(true);
+
+        final AtomicInteger ticks = new AtomicInteger();
+        final AtomicInteger frames = new AtomicInteger();
+        final AtomicInteger badAlphas = new AtomicInteger();
+        GameLoop gameLoop = new GameLoop(new GameLoop.Game() {
+            @Override
+            public void tick() {
+                ticks.incrementAndGet();
+            }
+
+            @Override
+            public boolean render(double alpha) {
+                if (alpha < 0 || alpha >= 1) {
+                    badAlphas.incrementAndGet();
+                }
+                frames.incrementAndGet();
+                return true;
+            }
+        }, config);
+
+        long startTime = System.nanoTime();
+        gameLoop.start();
+        Thread.sleep(1000);
+        gameLoop.stop();
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        assertEquals(0, badAlphas.get());
+        assertTrue(Math.abs(ticks.get() - 100 * seconds) <= 15, "ticks: " + ticks.get());
+        assertTrue(frames.get() <= 20 * seconds + 2, "frames: " + frames.get());
+        assertTrue(frames.get() >= 10, "frames: " + frames.get());
+    }
+
+    /**
+     * Without new frames the loop waits for the next tick instead of spinning
+     */
+    @Test
+    @DisplayName("GameLoop sleeps until the next tick when nothing was drawn")
+    public void idleUntilNextTick() throws InterruptedException {
+        Config config = new Config(90, true, false);
+        config.setTickRate(50);
+        config.setFpsLimiterOn(false);
+
+        final AtomicInteger ticks = new AtomicInteger();
+        final AtomicInteger frames = new AtomicInteger();
+        GameLoop gameLoop = new GameLoop(new GameLoop.Game() {
+            @Override
+            public void tick() {
+                ticks.incrementAndGet();
+            }
+
+            @Override
+            public boolean render(double alpha) {
+                frames.incrementAndGet();
+                return false;
+            }
+        }, config);
+
+        long startTime = System.nanoTime();
+        gameLoop.start();
+        Thread.sleep(1000);
+        gameLoop.stop();
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+
+        assertTrue(Math.abs(ticks.get() - 50 * seconds) <= 10, "ticks: " + ticks.get());
+        // one render attempt per tick, a spinning loop would make millions
+        assertTrue(frames.get() <= ticks.get() + 2, "frames: " + frames.get());
+    }
+}
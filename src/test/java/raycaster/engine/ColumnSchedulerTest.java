@@ -0,0 +1,87 @@
+package raycaster.engine;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnSchedulerTest {
+
+    /**
+     * Every column is handed out exactly once, also when the width does not
+     * divide by the worker count and when workers are starved
+     */
+    @Test
+    @DisplayName("ColumnScheduler covers the full width exactly once")
+    public void coversFullWidth() throws InterruptedException {
+        int[][] cases = {{640, 1}, {640, 3}, {641, 7}, {3, 16}, {1040, 64}};
+        for (int[] testCase : cases) {
+            final int columns = testCase[0];
+            final int workerCount = testCase[1];
+            for (int frame = 0; frame < 20; frame++) {
+                final ColumnScheduler columnScheduler = new ColumnScheduler(workerCount, 2);
+                columnScheduler.reset(columns);
+                final AtomicIntegerArray taken = new AtomicIntegerArray(columns);
+                final CountDownLatch start = new CountDownLatch(1);
+                Thread[] workers = new Thread[workerCount];
+                for (int worker = 0; worker < workerCount; worker++) {
+                    final int workerFinal = worker;
+                    workers[worker] = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                start.await();
+                            } catch (InterruptedException e) {
+                                return;
+                            }
+                            long tile;
+                            while ((tile = columnScheduler.next(workerFinal)) != ColumnScheduler.NONE) {
+                                for (int column = ColumnScheduler.tileStart(tile); column < ColumnScheduler.tileEnd(tile); column++) {
+                                    taken.incrementAndGet(column);
+                                    if (workerFinal == 0) {
+                                        // a slow worker gets its columns stolen
+                                        Thread.yield();
+                                    }
+                                }
+                            }
+                        }
+                    });
+                    workers[worker].start();
+                }
+                start.countDown();
+                for (Thread worker : workers) {
+                    worker.join();
+                }
+                for (int column = 0; column < columns; column++) {
+                    assertEquals(1, taken.get(column), columns + " columns, " + workerCount + " workers, column " + column);
+                }
+            }
+        }
+    }
+
+    /**
+     * A single worker takes shrinking tiles from its share
+     */
+    @Test
+    @DisplayName("ColumnScheduler shrinks the tiles as the share runs out")
+    public void shrinkingTiles() {
+        ColumnScheduler columnScheduler = new ColumnScheduler(1, 4);
+        columnScheduler.reset(100);
+
+        long tile = columnScheduler.next(0);
+        assertEquals(0, ColumnScheduler.tileStart(tile));
+        assertEquals(25, ColumnScheduler.tileEnd(tile));
+        int previousSize = 25;
+        int end = 25;
+        while ((tile = columnScheduler.next(0)) != ColumnScheduler.NONE) {
+            int size = ColumnScheduler.tileEnd(tile) - ColumnScheduler.tileStart(tile);
+            assertEquals(end, ColumnScheduler.tileStart(tile));
+            assertTrue(size <= previousSize);
+            previousSize = size;
+            end = ColumnScheduler.tileEnd(tile);
+        }
+        assertEquals(100, end);
+    }
+}
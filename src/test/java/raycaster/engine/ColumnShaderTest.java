@@ -0,0 +1,70 @@
+package raycaster.engine;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnShaderTest {
+
+    /**
+     * The scalar shader gives the colors of the shade tables, whichever shader is chosen
+     */
+    @Test
+    @DisplayName("ScalarColumnShader matches the shade tables")
+    public void scalarMatchesShadeTable() {
+        assertMatchesShadeTable(new ScalarColumnShader());
+    }
+
+    /**
+     * The chosen shader gives the colors of the shade tables, and it is the
+     * vectorized one when the incubator module is added
+     */
+    @Test
+    @DisplayName("ColumnShader matches the shade tables")
+    public void matchesShadeTable() {
+        ColumnShader columnShader = ColumnShaders.get();
+        if (isVectorModulePresent() && Boolean.parseBoolean(System.getProperty("raycaster.vectorShading", "true"))) {
+            assertFalse(columnShader instanceof ScalarColumnShader, "Vector module is present, but " + columnShader + " is used");
+        }
+        assertMatchesShadeTable(columnShader);
+    }
+
+    private static void assertMatchesShadeTable(ColumnShader columnShader) {
+        Random random = new Random(42);
+        int[] texels = new int[200];
+        for (int texel = 0; texel < texels.length; texel++) {
+            texels[texel] = random.nextInt();
+            if (texel % 7 == 0) {
+                texels[texel] &= 0xFFFF00FF; // no green
+            }
+        }
+        int[] shaded = new int[TextureAtlas.TEXTURE_SIZE];
+
+        for (int level : new int[]{0, 1, 37, 128, ShadeTable.LEVELS - 1}) {
+            for (int count : new int[]{1, 7, 16, 33, TextureAtlas.TEXTURE_SIZE}) {
+                for (boolean transparent : new boolean[]{false, true}) {
+                    int offset = random.nextInt(texels.length - count);
+                    columnShader.shade(texels, offset, count, level, transparent, shaded);
+                    for (int texel = 0; texel < count; texel++) {
+                        int color = texels[offset + texel];
+                        int expected = (transparent && ((color >> 8) & 0xFF) == 0)
+                                ? 0 : ShadeTable.shade(color, ShadeTable.forLevel(level));
+                        assertEquals(expected, shaded[texel], columnShader + ", level " + level + ", texel " + texel);
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isVectorModulePresent() {
+        try {
+            Class.forName("jdk.incubator.vector.IntVector");
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package raycaster.engine;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import raycaster.models.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DdaTraversalTest {
+
+    /**
+     * DDA traversal must find the same walls and objects as the original ray marcher
+     */
+    @Test
+    @DisplayName("DDA traversal hits match the ray marcher")
+    public void matchesMarchingTraversal() {
+        Map map = new Map();
+        RayTables rayTables = new RayTables();
+        RayTraversal marching = new MarchingTraversal();
+        RayTraversal dda = new DdaTraversal();
+        HitBuffer marchingWalls = new HitBuffer(64);
+        HitBuffer marchingObjects = new HitBuffer(64);
+        HitBuffer ddaWalls = new HitBuffer(64);
+        HitBuffer ddaObjects = new HitBuffer(64);
+        Random random = new Random(42);
+
+        for (int pose = 0; pose < 50; pose++) {
+            double x = 1.05 + random.nextDouble() * 17.9;
+            double y = 1.05 + random.nextDouble() * 17.9;
+            if (map.getTile((int) x, (int) y) != -1) {
+                pose--;
+                continue;
+            }
+            double angle = random.nextDouble() * 360;
+            boolean perspectiveCorrectionOn = random.nextBoolean();
+            rayTables.update(90, 640, angle);
+
+            for (int column = 0; column < 640; column++) {
+                marchingWalls.clear();
+                marchingObjects.clear();
+                ddaWalls.clear();
+                ddaObjects.clear();
+                marching.castColumn(map, x, y, rayTables, column, perspectiveCorrectionOn, marchingWalls, marchingObjects, null);
+                dda.castColumn(map, x, y, rayTables, column, perspectiveCorrectionOn, ddaWalls, ddaObjects, null);
+
+                String where = x + ", " + y + ", " + angle + "°, column " + column;
+                assertSameHits(marchingWalls, ddaWalls, where);
+                assertSameHits(marchingObjects, ddaObjects, where);
+            }
+        }
+    }
+
+    private static void assertSameHits(HitBuffer expected, HitBuffer actual, String where) {
+        assertEquals(expected.size(), actual.size(), where);
+        for (int hit = 0; hit < expected.size(); hit++) {
+            assertEquals(expected.getDistance(hit), actual.getDistance(hit), 1e-6, where);
+            assertTrue(Math.abs(expected.getTextureX(hit) - actual.getTextureX(hit)) <= 1, where);
+        }
+    }
+}
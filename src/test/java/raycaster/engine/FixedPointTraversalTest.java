@@ -0,0 +1,151 @@
+package raycaster.engine;
+
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import raycaster.models.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointTraversalTest {
+
+    // x, y, angle of the golden poses, including the axis aligned angles where a direction is zero
+    private static final double[][] POSES = {
+            {3.5, 3.5, 0}, {3.5, 3.5, 90}, {10.25, 4.75, 180}, {10.25, 4.75, 270},
+            {2.0, 2.5, 45}, {8.125, 13.375, 123.456}, {16.9, 1.1, 301.7}, {5.5, 17.25, 359.99}};
+
+    /**
+     * The sine table holds exact values at the quarter turns and is the same on every machine
+     */
+    @Test
+    @DisplayName("Fixed point trig matches its golden checksum")
+    public void trigTableIsExact() {
+        int quarter = FixedPointTraversal.ANGLE_UNITS / 4;
+        assertEquals(0, FixedPointTraversal.sin(0));
+        assertEquals(FixedPointTraversal.ONE, FixedPointTraversal.sin(quarter));
+        assertEquals(-FixedPointTraversal.ONE, FixedPointTraversal.sin(3 * quarter));
+        assertEquals(FixedPointTraversal.ONE, FixedPointTraversal.cos(0));
+        assertEquals(FixedPointTraversal.sin(quarter + 1234), FixedPointTraversal.cos(1234));
+        assertEquals(FixedPointTraversal.sin(5), FixedPointTraversal.sin(5 + FixedPointTraversal.ANGLE_UNITS));
+        assertEquals(quarter, FixedPointTraversal.toAngleUnits(90));
+        assertEquals(-quarter, FixedPointTraversal.toAngleUnits(-90));
+
+        CRC32 crc = new CRC32();
+        for (int angle = 0; angle < FixedPointTraversal.ANGLE_UNITS; angle++) {
+            updateInt(crc, FixedPointTraversal.sin(angle));
+        }
+        assertEquals(0xa4763470L, crc.getValue());
+    }
+
+    /**
+     * Hits of every column at the golden poses are bit-identical to the ones recorded when the traversal was written
+     */
+    @Test
+    @DisplayName("Fixed point hits match their golden checksum")
+    public void hitsMatchGolden() {
+        Map map = new Map();
+        RayTables rayTables = new RayTables();
+        RayTraversal traversal = new FixedPointTraversal();
+        HitBuffer walls = new HitBuffer(64);
+        HitBuffer objects = new HitBuffer(64);
+        RayTraceBuffer trace = new RayTraceBuffer(1024);
+        CRC32 crc = new CRC32();
+
+        for (double[] pose : POSES) {
+            rayTables.update(90, 640, pose[2]);
+            rayTables.updateFixedPoint();
+            for (int column = 0; column < 640; column++) {
+                walls.clear();
+                objects.clear();
+                traversal.castColumn(map, pose[0], pose[1], rayTables, column, column % 2 == 0, walls, objects, trace);
+                updateHits(crc, walls);
+                updateHits(crc, objects);
+            }
+        }
+        for (int point = 0; point < trace.size(); point++) {
+            updateLong(crc, Double.doubleToLongBits(trace.getX(point)));
+            updateLong(crc, Double.doubleToLongBits(trace.getY(point)));
+        }
+        assertEquals(0xd9031a00L, crc.getValue());
+    }
+
+    /**
+     * Apart from the angles rounded to the table, the fixed point traversal finds the same hits as DDA
+     */
+    @Test
+    @DisplayName("Fixed point hits are close to DDA")
+    public void closeToDda() {
+        Map map = new Map();
+        RayTables rayTables = new RayTables();
+        RayTraversal dda = new DdaTraversal();
+        RayTraversal fixedPoint = new FixedPointTraversal();
+        HitBuffer ddaWalls = new HitBuffer(64);
+        HitBuffer ddaObjects = new HitBuffer(64);
+        HitBuffer fixedPointWalls = new HitBuffer(64);
+        HitBuffer fixedPointObjects = new HitBuffer(64);
+        Random random = new Random(42);
+        int columns = 0;
+        int differentColumns = 0;
+
+        for (int pose = 0; pose < 50; pose++) {
+            double x = 1.05 + random.nextDouble() * 17.9;
+            double y = 1.05 + random.nextDouble() * 17.9;
+            if (map.getTile((int) x, (int) y) != -1) {
+                pose--;
+                continue;
+            }
+            rayTables.update(90, 640, random.nextDouble() * 360);
+            rayTables.updateFixedPoint();
+
+            for (int column = 0; column < 640; column++) {
+                ddaWalls.clear();
+                ddaObjects.clear();
+                fixedPointWalls.clear();
+                fixedPointObjects.clear();
+                dda.castColumn(map, x, y, rayTables, column, true, ddaWalls, ddaObjects, null);
+                fixedPoint.castColumn(map, x, y, rayTables, column, true, fixedPointWalls, fixedPointObjects, null);
+                columns++;
+                // a ray passing a tile corner may end in the neighbouring tile after rounding
+                if (!sameHits(ddaWalls, fixedPointWalls) || !sameHits(ddaObjects, fixedPointObjects)) {
+                    differentColumns++;
+                }
+            }
+        }
+        assertTrue(differentColumns * 1000 < columns, differentColumns + " of " + columns + " columns differ");
+    }
+
+    private static boolean sameHits(HitBuffer expected, HitBuffer actual) {
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (int hit = 0; hit < expected.size(); hit++) {
+            if (Math.abs(expected.getDistance(hit) - actual.getDistance(hit)) > expected.getDistance(hit) * 0.01
+                    || Math.abs(expected.getTextureX(hit) - actual.getTextureX(hit)) > 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void updateHits(CRC32 crc, HitBuffer hits) {
+        updateInt(crc, hits.size());
+        for (int hit = 0; hit < hits.size(); hit++) {
+            updateLong(crc, Double.doubleToLongBits(hits.getDistance(hit)));
+            updateInt(crc, hits.getTextureX(hit));
+        }
+    }
+
+    private static void updateLong(CRC32 crc, long value) {
+        updateInt(crc, (int) (value >>> 32));
+        updateInt(crc, (int) value);
+    }
+
+    private static void updateInt(CRC32 crc, int value) {
+        crc.update(value >>> 24);
+        crc.update(value >>> 16);
+        crc.update(value >>> 8);
+        crc.update(value);
+    }
+}
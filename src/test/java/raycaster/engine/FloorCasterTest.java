@@ -0,0 +1,52 @@
+package raycaster.engine;
+
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FloorCasterTest {
+
+    private static int[] cast(int width, int height, int bands) {
+        BufferedImage image = new BufferedImage(512, 128, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 512; x++) {
+            for (int y = 0; y < 128; y++) {
+                image.setRGB(x, y, (x * 7 + y * 13) & 0xFFFFFF);
+            }
+        }
+        TextureAtlas textureAtlas = new TextureAtlas(image);
+        FrameBuffer frameBuffer = new FrameBuffer(width + 10, height);
+        Arrays.fill(frameBuffer.getPixels(), 0x123456);
+
+        RayTables rayTables = new RayTables();
+        rayTables.update(90, width, 30);
+        FloorCaster floorCaster = new FloorCaster(frameBuffer, width, height, textureAtlas, bands);
+        floorCaster.prepare(rayTables, 3.3, 4.7, true);
+        for (int band = 0; band < bands; band++) {
+            floorCaster.castRows(band);
+        }
+        return frameBuffer.getPixels();
+    }
+
+    /**
+     * Every view pixel is cast once, whatever the number of bands, and
+     * nothing outside of the view is touched
+     */
+    @Test
+    @DisplayName("FloorCaster covers the view in any number of row bands")
+    public void coversViewInBands() {
+        for (int height : new int[] {48, 49}) {
+            int[] single = cast(64, height, 1);
+            int[] banded = cast(64, height, 5);
+            assertArrayEquals(single, banded);
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < 74; x++) {
+                    boolean untouched = single[y * 74 + x] == 0x123456;
+                    assertEquals(x >= 64, untouched, "pixel " + x + "," + y);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package raycaster.engine;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameBufferTest {
+
+    /**
+     * Column spans written into the int[] must match what Graphics2D.drawLine paints
+     */
+    @Test
+    @DisplayName("FrameBuffer column fill matches Graphics2D.drawLine")
+    public void fillColumnMatchesDrawLine() {
+        int width = 8;
+        int height = 32;
+        FrameBuffer frameBuffer = new FrameBuffer(width, height);
+        BufferedImage reference = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = reference.createGraphics();
+
+        int[][] spans = {{0, 0, 0}, {1, 5, 9}, {2, -10, 3}, {3, 28, 60}, {4, -5, 40}, {5, 12, 12}, {6, 20, 10}};
+        for (int[] span : spans) {
+            int rgb = 0xFF000000 | (span[0] * 30) << 16 | 0x40 << 8 | span[1] & 0xFF;
+            frameBuffer.fillColumn(span[0], span[1], span[2], rgb);
+            g2d.setColor(new Color(rgb));
+            g2d.drawLine(span[0], span[1], span[0], span[2]);
+        }
+        g2d.dispose();
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(reference.getRGB(x, y), frameBuffer.getImage().getRGB(x, y), "pixel " + x + "," + y);
+            }
+        }
+    }
+
+    /**
+     * A wrapped image shares its pixels with the frame buffer
+     */
+    @Test
+    @DisplayName("FrameBuffer wraps TYPE_INT_RGB images only")
+    public void wrapsImage() {
+        BufferedImage image = new BufferedImage(4, 3, BufferedImage.TYPE_INT_RGB);
+        FrameBuffer frameBuffer = new FrameBuffer(image);
+        assertSame(image, frameBuffer.getImage());
+        assertEquals(4, frameBuffer.getWidth());
+        assertEquals(3, frameBuffer.getHeight());
+        frameBuffer.setPixel(2, 1, 0x123456);
+        assertEquals(0x123456, image.getRGB(2, 1) & 0xFFFFFF);
+
+        try {
+            new FrameBuffer(new BufferedImage(4, 3, BufferedImage.TYPE_INT_ARGB));
+            fail("ARGB image accepted");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+}
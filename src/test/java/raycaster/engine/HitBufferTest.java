@@ -0,0 +1,63 @@
+package raycaster.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HitBufferTest {
+
+    /**
+     * Hits are returned far-to-near regardless of the order they were added in
+     */
+    @Test
+    @DisplayName("HitBuffer returns hits sorted far-to-near")
+    public void sortedFarToNear() {
+        HitBuffer hitBuffer = new HitBuffer(4);
+        hitBuffer.add(1.5, 10);
+        hitBuffer.add(3.0, 30);
+        hitBuffer.add(2.0, 20);
+
+        assertEquals(3, hitBuffer.size());
+        assertEquals(3.0, hitBuffer.getDistance(0));
+        assertEquals(30, hitBuffer.getTextureX(0));
+        assertEquals(2.0, hitBuffer.getDistance(1));
+        assertEquals(20, hitBuffer.getTextureX(1));
+        assertEquals(1.5, hitBuffer.getDistance(2));
+        assertEquals(10, hitBuffer.getTextureX(2));
+    }
+
+    /**
+     * A hit at an already stored distance replaces the previous one
+     */
+    @Test
+    @DisplayName("HitBuffer replaces hits at the same distance")
+    public void sameDistanceReplaces() {
+        HitBuffer hitBuffer = new HitBuffer(4);
+        hitBuffer.add(2.0, 20);
+        hitBuffer.add(2.0, 21);
+
+        assertEquals(1, hitBuffer.size());
+        assertEquals(21, hitBuffer.getTextureX(0));
+    }
+
+    /**
+     * A full buffer keeps the nearest hits and can be reused after clear
+     */
+    @Test
+    @DisplayName("HitBuffer drops the farthest hit when full")
+    public void fullBufferKeepsNearest() {
+        HitBuffer hitBuffer = new HitBuffer(2);
+        hitBuffer.add(1.0, 10);
+        hitBuffer.add(2.0, 20);
+        hitBuffer.add(3.0, 30);
+        hitBuffer.add(0.5, 5);
+
+        assertEquals(2, hitBuffer.size());
+        assertEquals(1.0, hitBuffer.getDistance(0));
+        assertEquals(0.5, hitBuffer.getDistance(1));
+
+        hitBuffer.clear();
+        assertTrue(hitBuffer.isEmpty());
+    }
+}
@@ -0,0 +1,124 @@
+package raycaster.engine;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import raycaster.models.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapRayCasterTest {
+
+    /**
+     * A batch of angles finds the same walls as the column rays of the renderer
+     */
+    @Test
+    @DisplayName("MapRayCaster batch hits match the column traversal")
+    public void matchesColumnTraversal() {
+        Map map = new Map();
+        MapRayCaster mapRayCaster = new MapRayCaster(map);
+        RayTables rayTables = new RayTables();
+        RayTraversal dda = new DdaTraversal();
+        HitBuffer walls = new HitBuffer(64);
+        HitBuffer objects = new HitBuffer(64);
+        double[] angles = new double[320];
+        RayHits rayHits = new RayHits(angles.length);
+
+        double x = 2.5;
+        double y = 3.5;
+        rayTables.update(90, angles.length, 30);
+        for (int column = 0; column < angles.length; column++) {
+            angles[column] = Math.toDegrees(Math.atan2(rayTables.getDirectionY(column), rayTables.getDirectionX(column)));
+        }
+        mapRayCaster.castRays(x, y, angles, rayHits);
+
+        assertEquals(angles.length, rayHits.size());
+        for (int column = 0; column < angles.length; column++) {
+            walls.clear();
+            objects.clear();
+            dda.castColumn(map, x, y, rayTables, column, false, walls, objects, null);
+            assertTrue(rayHits.isHit(column));
+            assertEquals(walls.getDistance(0), rayHits.getDistance(column), 1e-9, "column " + column);
+            assertTrue(Math.abs(walls.getTextureX(0) - rayHits.getTextureX(column)) <= 1, "column " + column);
+            double hitX = rayHits.getHitX(column);
+            double hitY = rayHits.getHitY(column);
+            assertEquals(rayHits.getDistance(column), Math.hypot(hitX - x, hitY - y), 1e-9);
+        }
+    }
+
+    /**
+     * Threads sharing one caster get the results of a single threaded caster
+     */
+    @Test
+    @DisplayName("MapRayCaster is safe for concurrent callers")
+    public void concurrentCallers() throws InterruptedException {
+        final Map map = new Map();
+        final MapRayCaster shared = new MapRayCaster(map);
+        final double[] angles = new double[720];
+        for (int ray = 0; ray < angles.length; ray++) {
+            angles[ray] = ray * 0.5;
+        }
+        final double[][] origins = new double[16][];
+        Random random = new Random(42);
+        for (int origin = 0; origin < origins.length; origin++) {
+            double x = 1.05 + random.nextDouble() * 17.9;
+            double y = 1.05 + random.nextDouble() * 17.9;
+            if (map.getTile((int) x, (int) y) != -1) {
+                origin--;
+                continue;
+            }
+            origins[origin] = new double[]{x, y};
+        }
+        final double[][] expected = new double[origins.length][angles.length];
+        RayHits rayHits = new RayHits(angles.length);
+        for (int origin = 0; origin < origins.length; origin++) {
+            new MapRayCaster(map).castRays(origins[origin][0], origins[origin][1], angles, rayHits);
+            for (int ray = 0; ray < angles.length; ray++) {
+                expected[origin][ray] = rayHits.getDistance(ray);
+            }
+        }
+
+        final AtomicInteger mismatches = new AtomicInteger();
+        Thread[] threads = new Thread[4];
+        for (int thread = 0; thread < threads.length; thread++) {
+            threads[thread] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    RayHits own = new RayHits(angles.length);
+                    for (int round = 0; round < 50; round++) {
+                        for (int origin = 0; origin < origins.length; origin++) {
+                            shared.castRays(origins[origin][0], origins[origin][1], angles, own);
+                            for (int ray = 0; ray < angles.length; ray++) {
+                                if (Double.compare(own.getDistance(ray), expected[origin][ray]) != 0) {
+                                    mismatches.incrementAndGet();
+                                }
+                            }
+                        }
+                    }
+                }
+            });
+            threads[thread].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, mismatches.get());
+    }
+
+    /**
+     * More angles than the result buffer holds are rejected
+     */
+    @Test
+    @DisplayName("MapRayCaster rejects a too small result buffer")
+    public void rejectsSmallBuffer() {
+        MapRayCaster mapRayCaster = new MapRayCaster(new Map());
+        try {
+            mapRayCaster.castRays(2.5, 3.5, new double[8], new RayHits(4));
+            fail("expected an exception");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+}
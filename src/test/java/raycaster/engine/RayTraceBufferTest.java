@@ -0,0 +1,37 @@
+package raycaster.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RayTraceBufferTest {
+
+    /**
+     * The buffer grows past its initial capacity and drains in insertion order
+     */
+    @Test
+    @DisplayName("RayTraceBuffer grows and drains in order")
+    public void growsAndDrains() {
+        RayTraceBuffer rayTraceBuffer = new RayTraceBuffer(2);
+        for (int point = 0; point < 5; point++) {
+            rayTraceBuffer.addPoint(point, point * 10);
+        }
+        assertEquals(5, rayTraceBuffer.size());
+
+        final RayTraceBuffer drained = new RayTraceBuffer(8);
+        rayTraceBuffer.drainTo(new RayTrace() {
+            @Override
+            public void addPoint(double x, double y) {
+                drained.addPoint(x, y);
+            }
+        });
+
+        assertEquals(0, rayTraceBuffer.size());
+        assertEquals(5, drained.size());
+        for (int point = 0; point < 5; point++) {
+            assertEquals(point, drained.getX(point));
+            assertEquals(point * 10, drained.getY(point));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package raycaster.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import raycaster.models.Config;
+import raycaster.models.EntityGrid;
+import raycaster.models.Map;
+import raycaster.models.Player;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderServerTest {
+
+    /**
+     * Every session of a server frame looks like its camera rendered alone
+     */
+    @Test
+    @DisplayName("RenderServer renders every session like a single renderer")
+    public void sessionsMatchSingleRenderer() {
+        Map map = new Map();
+        TextureAtlas textureAtlas = TestTextures.atlas();
+        EntityGrid entityGrid = EntityGrid.scatter(map, 100, 7L);
+        RenderWorkerPool renderWorkerPool = new RenderWorkerPool(3);
+        try {
+            RenderServer renderServer = new RenderServer(map, textureAtlas, null, renderWorkerPool);
+            renderServer.setEntityGrid(entityGrid);
+            double[][] poses = {{2.5, 3.5, 30}, {10.5, 9.5, 200}, {5.5, 15.5, 300}, {16.5, 2.5, 95}};
+            RenderSession[] sessions = new RenderSession[poses.length];
+            for (int session = 0; session < poses.length; session++) {
+                Config config = new Config(90, session % 2 == 0, false);
+                config.setTraversal(session < 2 ? Config.Traversal.DDA : Config.Traversal.MARCHING);
+                config.setFloorCastingOn(session == 1);
+                sessions[session] = renderServer.openSession(
+                        new Player(poses[session][0], poses[session][1], poses[session][2]), config,
+                        96 + session * 17, 64 + session * 5);
+            }
+
+            for (int frame = 0; frame < 2; frame++) {
+                renderServer.renderFrame();
+                for (RenderSession session : sessions) {
+                    FrameBuffer frameBuffer = session.getFrameBuffer();
+                    FrameBuffer expected = new FrameBuffer(frameBuffer.getWidth(), frameBuffer.getHeight());
+                    Renderer renderer = new Renderer(expected, expected.getWidth(), expected.getHeight(),
+                            textureAtlas, null, renderWorkerPool);
+                    renderer.setEntityGrid(entityGrid);
+                    renderer.render(map, session.getPlayer(), session.getConfig(), null);
+                    assertArrayEquals(expected.getPixels(), frameBuffer.getPixels());
+                    assertEquals(frame + 1, session.getFrames());
+                    session.getPlayer().setAngle(session.getPlayer().getAngle() + 10);
+                }
+            }
+            assertEquals(2, renderServer.getFrames());
+
+            renderServer.closeSession(sessions[0]);
+            renderServer.renderFrame();
+            assertEquals(3, renderServer.getSessionCount());
+            assertEquals(2, sessions[0].getFrames());
+            assertEquals(3, sessions[1].getFrames());
+        } finally {
+            renderWorkerPool.shutdown();
+        }
+    }
+}
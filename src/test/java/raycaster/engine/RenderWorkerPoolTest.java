@@ -0,0 +1,93 @@
+package raycaster.engine;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RenderWorkerPoolTest {
+
+    /**
+     * Consecutive jobs start right after each other without losing or repeating a
+     * wake-up, so every column of every generation is drawn exactly once
+     */
+    @Test
+    @DisplayName("RenderWorkerPool runs every column exactly once per generation")
+    public void everyColumnOncePerGeneration() {
+        final int columns = 641;
+        final int workerCount = 4;
+        final RenderWorkerPool renderWorkerPool = new RenderWorkerPool(workerCount);
+        final ColumnScheduler columnScheduler = new ColumnScheduler(workerCount, 2);
+        final AtomicIntegerArray columnGeneration = new AtomicIntegerArray(columns);
+        final AtomicInteger generation = new AtomicInteger();
+        final AtomicInteger repeated = new AtomicInteger();
+        RenderWorkerPool.Job job = new RenderWorkerPool.Job() {
+            @Override
+            public void run(int worker) {
+                long tile;
+                while ((tile = columnScheduler.next(worker)) != ColumnScheduler.NONE) {
+                    for (int column = ColumnScheduler.tileStart(tile); column < ColumnScheduler.tileEnd(tile); column++) {
+                        if (columnGeneration.getAndSet(column, generation.get()) != generation.get() - 1) {
+                            repeated.incrementAndGet();
+                        }
+                    }
+                }
+            }
+        };
+
+        try {
+            for (int frame = 1; frame <= 5000; frame++) {
+                generation.set(frame);
+                columnScheduler.reset(columns);
+                renderWorkerPool.execute(job);
+                assertEquals(0, repeated.get(), "Columns repeated or skipped in generation " + frame);
+                for (int column = 0; column < columns; column++) {
+                    assertEquals(frame, columnGeneration.get(column), "Generation " + frame + ", column " + column);
+                }
+            }
+        } finally {
+            renderWorkerPool.shutdown();
+        }
+    }
+
+    /**
+     * A second caller, here a job dispatching another job, is rejected instead of
+     * corrupting the running one
+     */
+    @Test
+    @DisplayName("RenderWorkerPool rejects a concurrent execute")
+    public void rejectsConcurrentExecute() {
+        final RenderWorkerPool renderWorkerPool = new RenderWorkerPool(2);
+        final AtomicInteger runs = new AtomicInteger();
+        final RenderWorkerPool.Job count = new RenderWorkerPool.Job() {
+            @Override
+            public void run(int worker) {
+                runs.incrementAndGet();
+            }
+        };
+        RenderWorkerPool.Job nested = new RenderWorkerPool.Job() {
+            @Override
+            public void run(int worker) {
+                renderWorkerPool.execute(count);
+            }
+        };
+
+        try {
+            try {
+                renderWorkerPool.execute(nested);
+                fail("Nested execute was accepted");
+            } catch (IllegalStateException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+                assertEquals("Render worker pool is already running a job", e.getCause().getMessage());
+            }
+            assertEquals(0, runs.get());
+            // the rejected call leaves the pool usable
+            renderWorkerPool.execute(count);
+            assertEquals(2, runs.get());
+        } finally {
+            renderWorkerPool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package raycaster.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResolutionControllerTest {
+
+    private static final double[] SCALES = {1D, 0.75, 0.5, 0.25};
+    private static final long BUDGET = 16_000_000L;
+
+    /**
+     * Simulated render time that follows the number of pixels
+     */
+    private static long renderNanos(ResolutionController controller, long fullResolutionNanos) {
+        return (long) (fullResolutionNanos * controller.getScale() * controller.getScale());
+    }
+
+    /**
+     * A slow scene lowers the resolution until it fits, a fast one raises it back
+     */
+    @Test
+    @DisplayName("ResolutionController keeps the render time within the budget")
+    public void followsBudget() {
+        ResolutionController controller = new ResolutionController(SCALES);
+        for (int frame = 0; frame < 200; frame++) {
+            controller.update(renderNanos(controller, 40_000_000L), BUDGET);
+        }
+        // 40 ms at full resolution needs half of it, 10 ms
+        assertEquals(2, controller.getLevel());
+
+        for (int frame = 0; frame < 200; frame++) {
+            controller.update(renderNanos(controller, 10_000_000L), BUDGET);
+        }
+        assertEquals(0, controller.getLevel());
+    }
+
+    /**
+     * Times close to the budget do not make the resolution switch back and forth
+     */
+    @Test
+    @DisplayName("ResolutionController does not oscillate near the budget")
+    public void stableNearBudget() {
+        ResolutionController controller = new ResolutionController(SCALES);
+        int changes = 0;
+        int previousLevel = controller.getLevel();
+        for (int frame = 0; frame < 500; frame++) {
+            long nanos = renderNanos(controller, 20_000_000L) + ((frame % 2 == 0) ? 500_000L : -500_000L);
+            int level = controller.update(nanos, BUDGET);
+            if (level != previousLevel) {
+                changes++;
+                previousLevel = level;
+            }
+        }
+        assertEquals(1, controller.getLevel());
+        assertEquals(1, changes);
+    }
+}
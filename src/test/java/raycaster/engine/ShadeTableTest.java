@@ -0,0 +1,68 @@
+package raycaster.engine;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import javax.imageio.ImageIO;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShadeTableTest {
+
+    // texture columns of the atlas, objects in the first row and walls in the second one
+    private static final int[] TEXTURE_COLUMNS = {1, 17, 63, 64 + 30, 2 * 64 + 5, 5 * 64 + 40, 7 * 64 + 63};
+    private static final double[] DISTANCES = {0, 0.35, 1, 2.718, 6.5, 13.37, 31.9, 52, 80};
+
+    /**
+     * The atlas and the shade tables give the same pixels as reading the texture
+     * with getRGB and darkening every channel by distance * 5, like the renderer
+     * did before the atlas
+     */
+    @Test
+    @DisplayName("TextureAtlas and ShadeTable match the per-pixel shading of the texture file")
+    public void matchesGetRgbShading() throws IOException {
+        BufferedImage image = ImageIO.read(new File("static/textures.png"));
+        TextureAtlas textureAtlas = new TextureAtlas(image);
+        ColumnShader columnShader = ColumnShaders.get();
+        int[] shaded = new int[TextureAtlas.TEXTURE_SIZE];
+
+        for (int row = 0; row < 2; row++) {
+            // objects are drawn with transparent texels, walls without
+            boolean transparent = row == 0;
+            for (int x : TEXTURE_COLUMNS) {
+                for (double distance : DISTANCES) {
+                    int textureColumn = textureAtlas.getColumnOffset(x) + row * TextureAtlas.TEXTURE_SIZE;
+                    columnShader.shade(textureAtlas.getTexels(), textureColumn, TextureAtlas.TEXTURE_SIZE,
+                            ShadeTable.level(distance), transparent, shaded);
+                    for (int y = 0; y < TextureAtlas.TEXTURE_SIZE; y++) {
+                        int imgColor = image.getRGB(x, row * TextureAtlas.TEXTURE_SIZE + y);
+                        int expected;
+                        if (transparent && ((imgColor >> 8) & 0xFF) < 1) {
+                            expected = 0;
+                        } else {
+                            expected = ShadeTable.shade(imgColor, ShadeTable.forDistance(distance));
+                            assertEquals(baselineShade(imgColor, distance), expected,
+                                    "ShadeTable, column " + x + ", row " + y + ", distance " + distance);
+                        }
+                        assertEquals(expected, shaded[y],
+                                columnShader + ", column " + x + ", row " + (row * TextureAtlas.TEXTURE_SIZE + y) + ", distance " + distance);
+                    }
+                }
+            }
+        }
+    }
+
+    // shading of the renderer before the atlas, one getRGB and three double subtractions per pixel
+    private static int baselineShade(int imgColor, double distance) {
+        int red = (int) (((imgColor >> 16) & 0xFF) - distance * 5);
+        int green = (int) (((imgColor >> 8) & 0xFF) - distance * 5);
+        int blue = (int) ((imgColor & 0xFF) - distance * 5);
+        return 0xFF000000
+                | ((red >= 0) ? red : 0) << 16
+                | ((green >= 0) ? green : 0) << 8
+                | ((blue >= 0) ? blue : 0);
+    }
+}
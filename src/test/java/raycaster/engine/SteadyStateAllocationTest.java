@@ -0,0 +1,107 @@
+package raycaster.engine;
+
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import raycaster.input.Controls;
+import raycaster.metrics.FrameStats;
+import raycaster.models.Config;
+import raycaster.models.EntityGrid;
+import raycaster.models.Map;
+import raycaster.models.Player;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class SteadyStateAllocationTest {
+
+    private static final int FRAMES = 300;
+    private static final int WINDOWS = 3;
+    private static final char[] KEYS = {'w', 'd', 'w', 'a', 's', 'd', 'e', 'q'};
+
+    private static void simulateAndRender(int frames, Map map, Player player, Player previousPlayer,
+                                          Player renderPlayer, Config config, ScaledRenderer renderer,
+                                          RayTraceBuffer rayTrace) {
+        for (int frame = 0; frame < frames; frame++) {
+            previousPlayer.copyFrom(player);
+            Controls.apply(KEYS[frame % KEYS.length], player, config);
+            player.tick(map);
+            renderPlayer.interpolate(previousPlayer, player, 0.5);
+            rayTrace.clear();
+            renderer.render(map, renderPlayer, config, rayTrace);
+        }
+    }
+
+    /**
+     * After the warm-up a frame allocates nothing on the render thread or on
+     * the render workers, so the garbage collector never has to interrupt it
+     */
+    @Test
+    @DisplayName("Simulating and rendering frames allocates nothing after the warm-up")
+    public void steadyStateFramesDoNotAllocate() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+                "thread allocation counters are not available");
+        com.sun.management.ThreadMXBean threadMXBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported(), "thread allocation counters are not supported");
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        Map map = new Map();
+        TextureAtlas textureAtlas = TestTextures.atlas();
+        RenderWorkerPool renderWorkerPool = new RenderWorkerPool(2);
+        try {
+            List<Long> threadIds = new ArrayList<>();
+            threadIds.add(Thread.currentThread().getId());
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (thread.getName().startsWith("raycaster-render-")) {
+                    threadIds.add(thread.getId());
+                }
+            }
+            long[] ids = new long[threadIds.size()];
+            for (int thread = 0; thread < ids.length; thread++) {
+                ids[thread] = threadIds.get(thread);
+            }
+
+            BufferedImage background = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+            Config.Traversal[] traversals = Config.Traversal.values();
+            for (Config.Traversal traversal : traversals) {
+                ScaledRenderer renderer = new ScaledRenderer(new FrameBuffer(160, 120), 160, 120, textureAtlas,
+                        background, renderWorkerPool);
+                renderer.setEntityGrid(EntityGrid.scatter(map, 50, 5L));
+                renderer.setFrameStats(new FrameStats(renderWorkerPool.getWorkerCount()));
+                Player player = new Player(3.5, 3.5, 100);
+                Player previousPlayer = new Player(3.5, 3.5, 100);
+                Player renderPlayer = new Player(3.5, 3.5, 100);
+                Config config = new Config(90, true, false);
+                config.setTraversal(traversal);
+                config.setFloorCastingOn(true);
+                config.setDynamicResolutionOn(true);
+                RayTraceBuffer rayTrace = new RayTraceBuffer(16);
+
+                simulateAndRender(FRAMES, map, player, previousPlayer, renderPlayer, config, renderer, rayTrace);
+                // the JVM allocates once when the JIT starts calling a native method late, e.g. StrictMath.cos,
+                // which the first window tolerates, a frame that allocates does so in every window
+                for (int window = 0; window < WINDOWS; window++) {
+                    long[] before = threadMXBean.getThreadAllocatedBytes(ids);
+                    simulateAndRender(FRAMES, map, player, previousPlayer, renderPlayer, config, renderer, rayTrace);
+                    long[] after = threadMXBean.getThreadAllocatedBytes(ids);
+                    if (window == 0) {
+                        continue;
+                    }
+
+                    for (int thread = 0; thread < ids.length; thread++) {
+                        long allocated = after[thread] - before[thread];
+                        // the counters themselves allocate a little, a frame that allocates anything adds up to more
+                        assertTrue(allocated < FRAMES, traversal + " thread " + thread + " allocated " + allocated
+                                + " bytes in " + FRAMES + " frames of window " + window);
+                    }
+                }
+            }
+        } finally {
+            renderWorkerPool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package raycaster.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import raycaster.models.Config;
+import raycaster.models.Entity;
+import raycaster.models.EntityGrid;
+import raycaster.models.Map;
+import raycaster.models.Player;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemporalReuseTest {
+
+    private static int[] renderFresh(Map map, Player player, Config config, TextureAtlas textureAtlas,
+                                     RenderWorkerPool renderWorkerPool, RayTraceBuffer rayTrace) {
+        FrameBuffer frameBuffer = new FrameBuffer(90, 60);
+        Renderer renderer = new Renderer(frameBuffer, 90, 60, textureAtlas, null, renderWorkerPool);
+        renderer.render(map, player, config, rayTrace);
+        return frameBuffer.getPixels();
+    }
+
+    private static int differingColumns(int[] expected, int[] actual) {
+        int columns = 0;
+        for (int x = 0; x < 90; x++) {
+            for (int y = 0; y < 60; y++) {
+                if (expected[y * 90 + x] != actual[y * 90 + x]) {
+                    columns++;
+                    break;
+                }
+            }
+        }
+        return columns;
+    }
+
+    /**
+     * A frame is rendered again only when one of its inputs changed
+     */
+    @Test
+    @DisplayName("Renderer reuses the frame while nothing changes")
+    public void unchangedFrameIsReused() {
+        Map map = new Map();
+        TextureAtlas textureAtlas = TestTextures.atlas();
+        EntityGrid entityGrid = EntityGrid.scatter(map, 20, 3L);
+        RenderWorkerPool renderWorkerPool = new RenderWorkerPool(2);
+        try {
+            FrameBuffer frameBuffer = new FrameBuffer(90, 60);
+            Renderer renderer = new Renderer(frameBuffer, 90, 60, textureAtlas, null, renderWorkerPool);
+            renderer.setEntityGrid(entityGrid);
+            Player player = new Player(2.5, 3.5, 30);
+            Config config = new Config(90, true, false);
+
+            renderer.render(map, player, config, null);
+            assertFalse(renderer.isFrameReused());
+            assertTrue(renderer.isFrameCurrent(map, player, config));
+            int[] pixels = frameBuffer.getPixels().clone();
+
+            renderer.render(map, player, config, null);
+            assertTrue(renderer.isFrameReused());
+            assertArrayEquals(pixels, frameBuffer.getPixels());
+
+            player.setX(player.getX() + ViewState.POSE_EPSILON / 2);
+            renderer.render(map, player, config, null);
+            assertTrue(renderer.isFrameReused());
+
+            player.setX(2.6);
+            assertFalse(renderer.isFrameCurrent(map, player, config));
+            renderer.render(map, player, config, null);
+            assertFalse(renderer.isFrameReused());
+
+            config.setMipmappingOn(false);
+            renderer.render(map, player, config, null);
+            assertFalse(renderer.isFrameReused());
+
+            Entity entity = new Entity(4.5, 4.5, 1);
+            entityGrid.add(entity);
+            renderer.render(map, player, config, null);
+            assertFalse(renderer.isFrameReused());
+
+            // moved or retextured without a rebuild of the grid
+            entity.setX(4.75);
+            renderer.render(map, player, config, null);
+            assertFalse(renderer.isFrameReused());
+            entity.setTexture(2);
+            renderer.render(map, player, config, null);
+            assertFalse(renderer.isFrameReused());
+            entity.setTexture(2);
+            renderer.render(map, player, config, null);
+            assertTrue(renderer.isFrameReused());
+
+            renderer.invalidate();
+            renderer.render(map, player, config, null);
+            assertFalse(renderer.isFrameReused());
+
+            config.setTemporalReuseOn(false);
+            renderer.render(map, player, config, null);
+            renderer.render(map, player, config, null);
+            assertFalse(renderer.isFrameReused());
+            assertFalse(renderer.isFrameCurrent(map, player, config));
+        } finally {
+            renderWorkerPool.shutdown();
+        }
+    }
+
+    /**
+     * A turn by whole columns casts only the new columns and looks like a
+     * fresh frame, up to rays that graze a corner with a rotated direction
+     */
+    @Test
+    @DisplayName("Renderer shifts the cached columns when the view turns")
+    public void turnReusesColumns() {
+        Map map = new Map();
+        TextureAtlas textureAtlas = TestTextures.atlas();
+        RenderWorkerPool renderWorkerPool = new RenderWorkerPool(2);
+        try {
+            FrameBuffer frameBuffer = new FrameBuffer(90, 60);
+            Renderer renderer = new Renderer(frameBuffer, 90, 60, textureAtlas, null, renderWorkerPool);
+            // one degree per column
+            Player player = new Player(2.5, 3.5, 30);
+            Config config = new Config(90, true, false);
+            config.setTraversal(Config.Traversal.DDA);
+            RayTraceBuffer rayTrace = new RayTraceBuffer(16);
+            renderer.render(map, player, config, rayTrace);
+
+            double[] angles = {37, 25, 355.5, 100};
+            for (double angle : angles) {
+                player.setAngle(angle);
+                rayTrace.clear();
+                renderer.render(map, player, config, rayTrace);
+                assertFalse(renderer.isFrameReused());
+
+                RayTraceBuffer expectedTrace = new RayTraceBuffer(16);
+                int[] expected = renderFresh(map, player, config, textureAtlas, renderWorkerPool, expectedTrace);
+                assertTrue(differingColumns(expected, frameBuffer.getPixels()) <= 2, "angle " + angle);
+                assertEquals(expectedTrace.size(), rayTrace.size(), 4, "angle " + angle);
+            }
+
+            // rounded to the nearest column
+            player.setAngle(110.2);
+            renderer.render(map, player, config, null);
+            player.setAngle(110);
+            assertTrue(differingColumns(renderFresh(map, player, config, textureAtlas, renderWorkerPool, null),
+                    frameBuffer.getPixels()) <= 2);
+
+            // cast again exactly once the view stops turning
+            player.setAngle(110.2);
+            renderer.render(map, player, config, null);
+            assertFalse(renderer.isFrameReused());
+            assertArrayEquals(renderFresh(map, player, config, textureAtlas, renderWorkerPool, null),
+                    frameBuffer.getPixels());
+            renderer.render(map, player, config, null);
+            assertTrue(renderer.isFrameReused());
+        } finally {
+            renderWorkerPool.shutdown();
+        }
+    }
+
+    /**
+     * An entity texture the atlas does not have fails instead of showing another texture
+     */
+    @Test
+    @DisplayName("Renderer rejects entity textures outside of the atlas")
+    public void entityTextureOutsideOfAtlas() {
+        Map map = new Map();
+        EntityGrid entityGrid = new EntityGrid(map, EntityGrid.DEFAULT_CELL_SIZE);
+        entityGrid.add(new Entity(5.5, 3.5, 8)); // the atlas has 512 / 64 object textures
+        RenderWorkerPool renderWorkerPool = new RenderWorkerPool(1);
+        try {
+            Renderer renderer = new Renderer(new FrameBuffer(90, 60), 90, 60, TestTextures.atlas(), null, renderWorkerPool);
+            renderer.setEntityGrid(entityGrid);
+            try {
+                renderer.render(map, new Player(2.5, 3.5, 0), new Config(90, true, false), null);
+                fail("entity texture 8 was drawn");
+            } catch (IllegalArgumentException e) {
+                assertTrue(e.getMessage().contains("texture 8"), e.getMessage());
+            }
+        } finally {
+            renderWorkerPool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package raycaster.engine;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Textures of the renderer tests, so they do not depend on the texture file
+ */
+final class TestTextures {
+
+    private TestTextures() {
+    }
+
+    /**
+     * @return atlas of the size of the texture file with a gradient in every
+     * texture, every fifth row has no green and is transparent in objects
+     */
+    static TextureAtlas atlas() {
+        BufferedImage image = new BufferedImage(512, 128, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < 512; x++) {
+            for (int y = 0; y < 128; y++) {
+                image.setRGB(x, y, (x * 7 + y * 13) & 0xFFFFFF | ((y % 5 == 0) ? 0 : 0x100));
+            }
+        }
+        return new TextureAtlas(image);
+    }
+}
@@ -0,0 +1,80 @@
+package raycaster.engine;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextureAtlasTest {
+
+    /**
+     * Every mip level averages the 2x2 texels of the level above
+     */
+    @Test
+    @DisplayName("TextureAtlas builds box filtered mip levels")
+    public void mipLevels() {
+        BufferedImage image = new BufferedImage(128, 64, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 128; x++) {
+                // first texture stripes black and white by column, second one is plain red
+                int color = (x < 64) ? ((x % 2 == 0) ? 0xFF000000 : 0xFFFFFFFF) : 0xFFFF0000;
+                image.setRGB(x, y, color);
+            }
+        }
+        TextureAtlas textureAtlas = new TextureAtlas(image);
+
+        assertEquals(0xFFFFFFFF, textureAtlas.getTexels(0)[textureAtlas.getColumnOffset(0, 1) + 5]);
+        for (int level = 1; level < TextureAtlas.MIP_LEVELS; level++) {
+            assertEquals(128 >> level, textureAtlas.getWidth(level));
+            assertEquals(64 >> level, textureAtlas.getHeight(level));
+            int[] texels = textureAtlas.getTexels(level);
+            assertEquals(0xFF808080, texels[textureAtlas.getColumnOffset(level, 0)], "level " + level);
+            assertEquals(0xFFFF0000, texels[textureAtlas.getColumnOffset(level, 64) + (32 >> level)], "level " + level);
+        }
+    }
+
+    /**
+     * The level is chosen so that there are fewer than two texels per screen pixel
+     */
+    @Test
+    @DisplayName("TextureAtlas picks the mip level from the projected size")
+    public void mipLevelForProjectedSize() {
+        assertEquals(0, TextureAtlas.mipLevel(480));
+        assertEquals(0, TextureAtlas.mipLevel(64));
+        assertEquals(0, TextureAtlas.mipLevel(33));
+        assertEquals(1, TextureAtlas.mipLevel(32));
+        assertEquals(2, TextureAtlas.mipLevel(12));
+        assertEquals(5, TextureAtlas.mipLevel(2));
+        assertEquals(6, TextureAtlas.mipLevel(0.1));
+    }
+
+    /**
+     * Around every level boundary the wall height on screen, as the renderer
+     * works it out from the distance, gets one to two texels per pixel
+     */
+    @Test
+    @DisplayName("TextureAtlas mip levels change where a texel gets one pixel high")
+    public void mipLevelBoundaries() {
+        for (int level = 1; level < TextureAtlas.MIP_LEVELS; level++) {
+            double boundary = (TextureAtlas.TEXTURE_SIZE >> level);
+            assertEquals(level, TextureAtlas.mipLevel(boundary), "at " + boundary);
+            assertEquals(level - 1, TextureAtlas.mipLevel(Math.nextUp(boundary)), "above " + boundary);
+        }
+
+        int height = 480;
+        for (double distance = 1; distance < 1000; distance *= 1.01) {
+            double middle = 2 * height / (distance * 2); // as in Renderer.drawFromZBufferWall
+            int level = TextureAtlas.mipLevel(middle);
+            double texelsPerPixel = (TextureAtlas.TEXTURE_SIZE >> level) / middle;
+            if (level < TextureAtlas.MIP_LEVELS - 1) {
+                // the last level has a single texel however small the wall gets
+                assertTrue(texelsPerPixel < 2, "distance " + distance + ", level " + level);
+            }
+            if (level > 0) {
+                assertTrue(texelsPerPixel >= 1, "distance " + distance + ", level " + level);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package raycaster.input;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import raycaster.models.Config;
+import raycaster.models.Map;
+import raycaster.models.Player;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputRecorderTest {
+
+    // keys typed in the recorded ticks, every binding at least once and x is not bound
+    private static final String[] TICK_KEYS = {"w", "", "wd", "", "", "crx", "iu", "f", "", "p", "mt",
+            "ha", "", "qs", "e", "nn", "", "w", "ww", "", "r", "", "", "c", "t", "d"};
+
+    /**
+     * A replay started from the recorded pose and settings ends with the same
+     * player and config as the recorded session, also when the replaying game
+     * starts with other settings
+     */
+    @Test
+    @DisplayName("InputReplay reproduces the recorded player and config")
+    public void replayReproducesRecording() throws IOException {
+        File file = File.createTempFile("raycaster-input", ".rec");
+        file.deleteOnExit();
+        Map map = new Map();
+        Player player = new Player(3, 3, 100);
+        Config config = new Config(90, true, false);
+        config.setFloorCastingOn(true);
+        config.setDynamicResolutionOn(false);
+        config.setMipmappingOn(false);
+        config.setTemporalReuseOn(true);
+        config.setFpsLimiterOn(true);
+        config.setTraversal(Config.Traversal.DDA);
+
+        char[] tickKeys = new char[8];
+        try (InputRecorder inputRecorder = new InputRecorder(file, player, config)) {
+            for (int tick = 0; tick < 200; tick++) {
+                String keys = TICK_KEYS[tick % TICK_KEYS.length];
+                keys.getChars(0, keys.length(), tickKeys, 0);
+                inputRecorder.recordTick(tickKeys, keys.length());
+                for (int key = 0; key < keys.length(); key++) {
+                    Controls.apply(tickKeys[key], player, config);
+                }
+                player.tick(map);
+            }
+        }
+
+        InputReplay inputReplay = new InputReplay(file);
+        assertEquals(200, inputReplay.getTicks());
+        Player replayPlayer = new Player(0, 0, 0);
+        Config replayConfig = new Config(60, false, true);
+        replayConfig.setFloorCastingOn(!config.isFloorCastingOn());
+        replayConfig.setDynamicResolutionOn(!config.isDynamicResolutionOn());
+        replayConfig.setMipmappingOn(!config.isMipmappingOn());
+        replayConfig.setTemporalReuseOn(!config.isTemporalReuseOn());
+        replayConfig.setFpsLimiterOn(!config.isFpsLimiterOn());
+        inputReplay.applyInitialState(replayPlayer, replayConfig);
+        while (!inputReplay.isFinished()) {
+            int keyCount = inputReplay.nextTick(tickKeys);
+            for (int key = 0; key < keyCount; key++) {
+                Controls.apply(tickKeys[key], replayPlayer, replayConfig);
+            }
+            replayPlayer.tick(map);
+        }
+
+        assertEquals(player.getX(), replayPlayer.getX());
+        assertEquals(player.getY(), replayPlayer.getY());
+        assertEquals(player.getAngle(), replayPlayer.getAngle());
+        assertEquals(player.getVelocityX(), replayPlayer.getVelocityX());
+        assertEquals(player.getVelocityY(), replayPlayer.getVelocityY());
+        assertEquals(player.getVelocityAngle(), replayPlayer.getVelocityAngle());
+        assertEquals(config.getFov(), replayConfig.getFov());
+        assertEquals(config.isPerspectiveCorrectionOn(), replayConfig.isPerspectiveCorrectionOn());
+        assertEquals(config.isMetricOn(), replayConfig.isMetricOn());
+        assertEquals(config.getTraversal(), replayConfig.getTraversal());
+        assertEquals(config.isFloorCastingOn(), replayConfig.isFloorCastingOn());
+        assertEquals(config.isDynamicResolutionOn(), replayConfig.isDynamicResolutionOn());
+        assertEquals(config.isMipmappingOn(), replayConfig.isMipmappingOn());
+        assertEquals(config.isTemporalReuseOn(), replayConfig.isTemporalReuseOn());
+        assertEquals(config.isFpsLimiterOn(), replayConfig.isFpsLimiterOn());
+    }
+
+    /**
+     * A version 1 recording lacks settings its keys toggle and is rejected
+     */
+    @Test
+    @DisplayName("InputReplay rejects version 1 recordings")
+    public void rejectsVersionOne() throws IOException {
+        File file = File.createTempFile("raycaster-input", ".rec");
+        file.deleteOnExit();
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(file))) {
+            out.writeInt(InputRecorder.MAGIC);
+            out.writeByte(1);
+        }
+
+        try {
+            new InputReplay(file);
+            fail("Version 1 recording was accepted");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("unsupported recording version 1"), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package raycaster.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OverlayTextTest {
+
+    /**
+     * Numbers look like String.format output
+     */
+    @Test
+    @DisplayName("OverlayText formats numbers like String.format")
+    public void formatsLikeStringFormat() {
+        OverlayText overlayText = new OverlayText();
+        double[] values = {0, 0.004, 0.005, 1.5, 12.345, 99.999, 100.01, 359.2, -0.004, -3.25, 2.05};
+        for (double value : values) {
+            for (int decimals = 0; decimals <= 3; decimals++) {
+                String expected = String.format("%." + decimals + "f", value);
+                assertEquals(expected, overlayText.clear().append(value, decimals).toText(), "value " + value);
+            }
+        }
+        assertEquals("X: 3.50 Y: 4.00 ms 12",
+                overlayText.clear().append("X: ").append(3.5, 2).append(" Y: ").append(4, 2).append(" ms ")
+                        .append(12L).toText());
+    }
+
+    /**
+     * The same text is returned as the same String
+     */
+    @Test
+    @DisplayName("OverlayText keeps the String while the text does not change")
+    public void keepsUnchangedText() {
+        OverlayText overlayText = new OverlayText();
+        String first = overlayText.clear().append(42L).append(" FPS").toText();
+        assertSame(first, overlayText.clear().append(42L).append(" FPS").toText());
+        assertEquals("43 FPS", overlayText.clear().append(43L).append(" FPS").toText());
+    }
+}
@@ -0,0 +1,68 @@
+package raycaster.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StageTimingsTest {
+
+    /**
+     * Only the most recent timings are kept, oldest first
+     */
+    @Test
+    @DisplayName("StageTimings keeps the most recent timings")
+    public void keepsRecentTimings() {
+        StageTimings timings = new StageTimings(3);
+        assertEquals(4, timings.getCapacity());
+        for (long nanos = 1; nanos <= 6; nanos++) {
+            timings.record(nanos);
+        }
+
+        long[] recent = new long[8];
+        assertEquals(4, timings.copyRecent(recent));
+        assertArrayEquals(new long[] {3, 4, 5, 6}, Arrays.copyOf(recent, 4));
+        assertEquals(6, timings.getCount());
+        assertEquals(6, timings.getLastNanos());
+    }
+
+    /**
+     * Percentiles are taken from the sorted recent timings
+     */
+    @Test
+    @DisplayName("StageTimings computes p50, p99 and max")
+    public void percentiles() {
+        StageTimings timings = new StageTimings(128);
+        assertEquals(0, timings.getPercentileNanos(50));
+        for (long nanos = 100; nanos >= 1; nanos--) {
+            timings.record(nanos * 1_000_000);
+        }
+
+        assertEquals(50.0, timings.getP50Millis());
+        assertEquals(99.0, timings.getP99Millis());
+        assertEquals(100.0, timings.getMaxMillis());
+    }
+
+    /**
+     * Per worker stages are published once per worker
+     */
+    @Test
+    @DisplayName("FrameStats publishes the timings as MBeans")
+    public void registersMBeans() throws Exception {
+        FrameStats frameStats = new FrameStats(2);
+        frameStats.record(FrameStage.RAY_CAST, 1, 2_000_000);
+        frameStats.registerMBeans();
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("raycaster:type=FrameStats,stage=RAY_CAST,worker=1");
+            assertEquals(2.0, server.getAttribute(name, "P99Millis"));
+            assertTrue(server.isRegistered(new ObjectName("raycaster:type=FrameStats,stage=FRAME")));
+        } finally {
+            frameStats.unregisterMBeans();
+        }
+    }
+}
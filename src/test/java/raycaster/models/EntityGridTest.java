@@ -0,0 +1,109 @@
+package raycaster.models;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EntityGridTest {
+
+    private static int[] query(EntityGrid entityGrid, double minX, double minY, double maxX, double maxY) {
+        int[] out = new int[entityGrid.size()];
+        int count = entityGrid.query(minX, minY, maxX, maxY, out);
+        int[] found = Arrays.copyOf(out, count);
+        Arrays.sort(found);
+        return found;
+    }
+
+    /**
+     * Only the entities of the cells overlapping the rectangle are returned
+     */
+    @Test
+    @DisplayName("EntityGrid returns the entities of the overlapping cells")
+    public void queryCells() {
+        EntityGrid entityGrid = new EntityGrid(new Map(), 4);
+        entityGrid.add(new Entity(1.5, 1.5, 0));
+        entityGrid.add(new Entity(6.5, 1.5, 1));
+        entityGrid.add(new Entity(17.5, 18.5, 2));
+
+        assertArrayEquals(new int[]{0}, query(entityGrid, 0, 0, 3, 3));
+        assertArrayEquals(new int[]{0, 1}, query(entityGrid, 2, 2, 5, 3));
+        assertArrayEquals(new int[]{0, 1, 2}, query(entityGrid, -10, -10, 30, 30));
+        assertArrayEquals(new int[]{}, query(entityGrid, 9, 9, 11, 11));
+    }
+
+    /**
+     * A moved entity is found in its new cell after a rebuild
+     */
+    @Test
+    @DisplayName("EntityGrid moves entities into their new cells on rebuild")
+    public void rebuild() {
+        EntityGrid entityGrid = new EntityGrid(new Map(), 4);
+        Entity entity = new Entity(1.5, 1.5, 0);
+        entityGrid.add(entity);
+
+        entity.setX(13.5);
+        entity.setY(9.5);
+        assertArrayEquals(new int[]{0}, query(entityGrid, 0, 0, 3, 3));
+
+        entityGrid.rebuild();
+        assertArrayEquals(new int[]{}, query(entityGrid, 0, 0, 3, 3));
+        assertArrayEquals(new int[]{0}, query(entityGrid, 12, 8, 15, 11));
+    }
+
+    /**
+     * Scattered entities stand on empty tiles only
+     */
+    @Test
+    @DisplayName("EntityGrid scatters entities on empty tiles")
+    public void scatter() {
+        Map map = new Map();
+        EntityGrid entityGrid = EntityGrid.scatter(map, 500, 42L);
+        assertEquals(500, entityGrid.size());
+        for (int index = 0; index < entityGrid.size(); index++) {
+            Entity entity = entityGrid.get(index);
+            assertEquals(-1, map.getTile((int) entity.getX(), (int) entity.getY()));
+        }
+    }
+
+    /**
+     * Changing an entity changes the version of its grid, so reused frames are redrawn
+     */
+    @Test
+    @DisplayName("EntityGrid counts the changes of its entities")
+    public void entityChangesBumpVersion() {
+        EntityGrid entityGrid = new EntityGrid(new Map(), 4);
+        Entity entity = new Entity(1.5, 1.5, 0);
+        entityGrid.add(entity);
+
+        long version = entityGrid.getVersion();
+        entity.setX(1.5);
+        entity.setTexture(0);
+        assertEquals(version, entityGrid.getVersion());
+        entity.setX(2.5);
+        assertTrue(entityGrid.getVersion() > version);
+        version = entityGrid.getVersion();
+        entity.setY(2.5);
+        assertTrue(entityGrid.getVersion() > version);
+        version = entityGrid.getVersion();
+        entity.setTexture(3);
+        assertTrue(entityGrid.getVersion() > version);
+
+        try {
+            entityGrid.add(entity);
+            fail("entity was added to its grid twice");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("this grid"), e.getMessage());
+        }
+        assertEquals(1, entityGrid.size());
+        try {
+            new EntityGrid(new Map(), 4).add(entity);
+            fail("entity was added to a second grid");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("another grid"), e.getMessage());
+        }
+        entityGrid.clear();
+        new EntityGrid(new Map(), 4).add(entity);
+    }
+}
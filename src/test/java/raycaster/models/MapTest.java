@@ -0,0 +1,135 @@
+package raycaster.models;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapTest {
+
+    private static File tempFile(String suffix) throws IOException {
+        File file = File.createTempFile("map", suffix);
+        file.deleteOnExit();
+        return file;
+    }
+
+    /**
+     * A text map saved in the binary format reads back the same tiles
+     */
+    @Test
+    @DisplayName("Map imports text and round-trips through the binary format")
+    public void textToBinaryRoundTrip() throws IOException {
+        File text = tempFile(".txt");
+        try (PrintWriter writer = new PrintWriter(text)) {
+            writer.println("# three by two");
+            writer.println("10, -1, 12");
+            writer.println("");
+            writer.println("10  4  300");
+        }
+
+        Map imported = Map.load(text);
+        assertEquals(3, imported.getSizeX());
+        assertEquals(2, imported.getSizeY());
+        assertEquals(2, imported.getTileBytes());
+        assertEquals(-1, imported.getTile(1, 0));
+        assertEquals(300, imported.getTile(2, 1));
+
+        File binary = tempFile(".map");
+        imported.save(binary);
+        Map opened = Map.load(binary);
+        for (int y = 0; y < 2; y++) {
+            for (int x = 0; x < 3; x++) {
+                assertEquals(imported.getTile(x, y), opened.getTile(x, y));
+            }
+        }
+    }
+
+    /**
+     * The built-in map is stored with one byte per tile
+     */
+    @Test
+    @DisplayName("Map stores the built-in map in bytes")
+    public void builtInMap() throws IOException {
+        Map map = new Map();
+        assertEquals(20, map.getSizeX());
+        assertEquals(20, map.getSizeY());
+        assertEquals(1, map.getTileBytes());
+        assertEquals(4, map.getTile(12, 1));
+        assertEquals(11, map.getTile(7, 11));
+
+        File binary = tempFile(".map");
+        map.save(binary);
+        assertEquals(Map.HEADER_SIZE + 400, binary.length());
+        assertEquals(11, Map.open(binary).getTile(7, 11));
+    }
+
+    /**
+     * Large maps are mapped, not read into the heap
+     */
+    @Test
+    @DisplayName("Map opens a 4096x4096 map file")
+    public void largeMap() throws IOException {
+        File binary = tempFile(".map");
+        try (DataOutputStream output = new DataOutputStream(new FileOutputStream(binary))) {
+            output.writeInt(Map.MAGIC);
+            output.writeInt(Map.VERSION);
+            output.writeInt(4096);
+            output.writeInt(4096);
+            output.writeInt(1);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(binary, "rw")) {
+            file.setLength(Map.HEADER_SIZE + 4096L * 4096L);
+            file.seek(Map.HEADER_SIZE + 4095L * 4096L + 4000L);
+            file.writeByte(12);
+        }
+
+        Map map = Map.open(binary);
+        assertEquals(4096, map.getSizeX());
+        assertEquals(12, map.getTile(4000, 4095));
+        assertEquals(0, map.getTile(4001, 4095));
+    }
+
+    /**
+     * A file cut short is rejected instead of read past its end
+     */
+    @Test
+    @DisplayName("Map rejects truncated map files")
+    public void truncatedMap() throws IOException {
+        File binary = tempFile(".map");
+        new Map().save(binary);
+        try (RandomAccessFile file = new RandomAccessFile(binary, "rw")) {
+            file.setLength(binary.length() - 1);
+        }
+        try {
+            Map.open(binary);
+            fail("truncated map file was opened");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("truncated"), e.getMessage());
+        }
+    }
+
+    /**
+     * Coordinates outside of the map fail instead of reading a tile of the neighbouring row
+     */
+    @Test
+    @DisplayName("Map rejects tiles outside of the map")
+    public void tileOutOfBounds() {
+        Map map = new Map();
+        int[][] outside = {{-1, 5}, {20, 5}, {5, -1}, {5, 20}};
+        for (int[] tile : outside) {
+            try {
+                map.getTile(tile[0], tile[1]);
+                fail("tile " + tile[0] + ", " + tile[1] + " was read");
+            } catch (IndexOutOfBoundsException e) {
+                assertTrue(e.getMessage().contains("outside"), e.getMessage());
+            }
+        }
+        assertEquals(14, map.getTile(19, 19));
+    }
+}
@@ -0,0 +1,216 @@
+package raycaster.models;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PotentiallyVisibleSetTest {
+
+    private static final int[][] TWO_ROOMS = {
+            {10, 10, 10, 10, 10, 10, 10, 10, 10},
+            {10, -1, -1, -1, 10, -1, -1, -1, 10},
+            {10, -1, 2, -1, 10, -1, -1, -1, 10},
+            {10, -1, -1, -1, 10, -1, -1, -1, 10},
+            {10, 10, 10, 10, 10, 10, 10, 10, 10}
+    };
+
+    /**
+     * A solid wall hides the room behind it, transparent objects do not hide anything
+     */
+    @Test
+    @DisplayName("PotentiallyVisibleSet separates rooms divided by a wall")
+    public void wallsHideTiles() {
+        PotentiallyVisibleSet pvs = PotentiallyVisibleSet.build(new Map(TWO_ROOMS), 1);
+
+        assertTrue(pvs.isVisible(1, 1, 3, 3));
+        assertTrue(pvs.isVisible(1, 2, 3, 2), "behind the transparent object");
+        assertTrue(pvs.isVisible(1, 2, 4, 2), "the dividing wall");
+        assertFalse(pvs.isVisible(1, 2, 7, 2));
+        assertFalse(pvs.isVisible(7, 3, 2, 1));
+        assertTrue(pvs.isVisible(7, 3, 5, 1));
+        assertTrue(pvs.isVisible(-1, 0, 7, 2), "outside of the map");
+    }
+
+    /**
+     * Rays from points all over every walkable tile of the built-in map, in
+     * directions a fraction of a degree apart, only reach tiles in the set
+     */
+    @Test
+    @DisplayName("PotentiallyVisibleSet holds everything visible on the built-in map")
+    public void conservativeOnBuiltInMap() {
+        Map map = new Map();
+        PotentiallyVisibleSet pvs = PotentiallyVisibleSet.build(map);
+        double[] offsets = {0.001, 0.25, 0.5, 0.75, 0.999};
+        int hiddenPairs = 0;
+
+        for (int fromY = 0; fromY < map.getSizeY(); fromY++) {
+            for (int fromX = 0; fromX < map.getSizeX(); fromX++) {
+                if (map.getTile(fromX, fromY) >= 10) {
+                    continue;
+                }
+                for (double offsetY : offsets) {
+                    for (double offsetX : offsets) {
+                        for (int ray = 0; ray < 2048; ray++) {
+                            double angle = 2 * Math.PI * (ray + 0.37) / 2048;
+                            assertRayInSet(map, pvs, fromX + offsetX, fromY + offsetY, Math.cos(angle), Math.sin(angle));
+                        }
+                    }
+                }
+                for (int toY = 0; toY < map.getSizeY(); toY++) {
+                    for (int toX = 0; toX < map.getSizeX(); toX++) {
+                        if (!pvs.isVisible(fromX, fromY, toX, toY)) {
+                            hiddenPairs++;
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(hiddenPairs > 0, "nothing is hidden");
+    }
+
+    /**
+     * A 256x256 map of rooms with doors is split into 4x4 tile cells, rays from
+     * random points reach only tiles in the set and most of the map is hidden
+     * from most cells
+     */
+    @Test
+    @DisplayName("PotentiallyVisibleSet holds everything visible on a large map")
+    public void conservativeOnLargeMap() {
+        Random random = new Random(42);
+        int[][] rows = new int[256][256];
+        for (int y = 0; y < 256; y++) {
+            for (int x = 0; x < 256; x++) {
+                boolean wall = x % 16 == 0 || y % 16 == 0 || x == 255 || y == 255;
+                rows[y][x] = wall ? 10 + random.nextInt(4) : (random.nextInt(50) == 0 ? 2 : -1);
+            }
+        }
+        // a door two tiles wide at a random place of every wall between two rooms
+        for (int wall = 16; wall < 255; wall += 16) {
+            for (int room = 0; room < 240; room += 16) {
+                int door = room + 2 + random.nextInt(12);
+                rows[door][wall] = -1;
+                rows[door + 1][wall] = -1;
+                door = room + 2 + random.nextInt(12);
+                rows[wall][door] = -1;
+                rows[wall][door + 1] = -1;
+            }
+        }
+        Map map = new Map(rows);
+        PotentiallyVisibleSet pvs = PotentiallyVisibleSet.build(map);
+        assertEquals(4, pvs.getCellSize());
+
+        for (int source = 0; source < 500; source++) {
+            double x = 1 + random.nextDouble() * 254;
+            double y = 1 + random.nextDouble() * 254;
+            if (map.getTile((int) x, (int) y) >= 10) {
+                source--;
+                continue;
+            }
+            for (int ray = 0; ray < 1000; ray++) {
+                double angle = random.nextDouble() * 2 * Math.PI;
+                assertRayInSet(map, pvs, x, y, Math.cos(angle), Math.sin(angle));
+            }
+        }
+
+        long visibleCells = 0;
+        long walkableCells = 0;
+        for (int y = 1; y < 256; y += 4) {
+            for (int x = 1; x < 256; x += 4) {
+                if (map.getTile(x, y) < 10) {
+                    visibleCells += pvs.countVisibleCells(x, y);
+                    walkableCells++;
+                }
+            }
+        }
+        assertTrue(visibleCells < walkableCells * 64 * 64 / 8,
+                "on average " + visibleCells / walkableCells + " of " + 64 * 64 + " cells are visible");
+    }
+
+    // walks the ray from tile to tile up to the first solid wall
+    private static void assertRayInSet(Map map, PotentiallyVisibleSet pvs, double originX, double originY,
+                                       double directionX, double directionY) {
+        int fromX = (int) originX;
+        int fromY = (int) originY;
+        int tileX = fromX;
+        int tileY = fromY;
+        int stepX = (directionX < 0) ? -1 : 1;
+        int stepY = (directionY < 0) ? -1 : 1;
+        double deltaDistanceX = Math.abs(1 / directionX);
+        double deltaDistanceY = Math.abs(1 / directionY);
+        double sideDistanceX = ((directionX < 0) ? originX - tileX : tileX + 1 - originX) * deltaDistanceX;
+        double sideDistanceY = ((directionY < 0) ? originY - tileY : tileY + 1 - originY) * deltaDistanceY;
+
+        while (tileX >= 0 && tileY >= 0 && tileX < map.getSizeX() && tileY < map.getSizeY()) {
+            if (!pvs.isVisible(fromX, fromY, tileX, tileY)) {
+                fail("Tile " + tileX + ", " + tileY + " is reached from " + originX + ", " + originY
+                        + " in direction " + directionX + ", " + directionY + " but is not in the set");
+            }
+            if (map.getTile(tileX, tileY) >= 10) {
+                return;
+            }
+            if (sideDistanceX < sideDistanceY) {
+                sideDistanceX += deltaDistanceX;
+                tileX += stepX;
+            } else {
+                sideDistanceY += deltaDistanceY;
+                tileY += stepY;
+            }
+        }
+    }
+
+    /**
+     * A saved set loads back with the same bits and is only reused for the same tiles and version
+     */
+    @Test
+    @DisplayName("PotentiallyVisibleSet is saved next to the map and rebuilt for changed tiles or versions")
+    public void saveAndReuse() throws IOException {
+        File mapFile = File.createTempFile("map", ".map");
+        mapFile.deleteOnExit();
+        File pvsFile = PotentiallyVisibleSet.fileFor(mapFile);
+        pvsFile.deleteOnExit();
+        Map map = new Map();
+        map.save(mapFile);
+
+        assertNull(PotentiallyVisibleSet.loadIfPresent(map, mapFile));
+        PotentiallyVisibleSet built = PotentiallyVisibleSet.loadOrBuild(map, mapFile);
+        assertTrue(pvsFile.isFile());
+        PotentiallyVisibleSet loaded = PotentiallyVisibleSet.loadIfPresent(map, mapFile);
+        assertNotNull(loaded);
+        for (int fromY = 0; fromY < map.getSizeY(); fromY++) {
+            for (int fromX = 0; fromX < map.getSizeX(); fromX++) {
+                assertEquals(built.countVisibleCells(fromX, fromY), loaded.countVisibleCells(fromX, fromY));
+                for (int toY = 0; toY < map.getSizeY(); toY += 3) {
+                    for (int toX = 0; toX < map.getSizeX(); toX += 3) {
+                        assertEquals(built.isVisible(fromX, fromY, toX, toY), loaded.isVisible(fromX, fromY, toX, toY));
+                    }
+                }
+            }
+        }
+
+        int[][] rows = new int[map.getSizeY()][map.getSizeX()];
+        for (int y = 0; y < map.getSizeY(); y++) {
+            for (int x = 0; x < map.getSizeX(); x++) {
+                rows[y][x] = map.getTile(x, y);
+            }
+        }
+        rows[1][1] = 10;
+        Map changed = new Map(rows);
+        assertFalse(loaded.matches(changed));
+        assertNull(PotentiallyVisibleSet.loadIfPresent(changed, mapFile));
+        assertTrue(PotentiallyVisibleSet.loadOrBuild(changed, mapFile).matches(changed));
+
+        // a set of an older version is built again
+        try (RandomAccessFile file = new RandomAccessFile(pvsFile, "rw")) {
+            file.seek(4);
+            file.writeInt(PotentiallyVisibleSet.VERSION - 1);
+        }
+        assertNull(PotentiallyVisibleSet.loadIfPresent(changed, mapFile));
+        assertTrue(PotentiallyVisibleSet.loadOrBuild(changed, mapFile).matches(changed));
+        assertNotNull(PotentiallyVisibleSet.loadIfPresent(changed, mapFile));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * The MIT License
+ *
+ * Copyright 2019 Pavel Vavruska.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+package raycaster.engine;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Column shading with the Vector API. The texels of a column are contiguous,
+ * so a span is loaded lane by lane without a gather. Every channel is darkened
+ * by the shade level and clamped at 0 in the lanes, and texels without green
+ * are masked to 0 when the texture is transparent. The remainder of a span is
+ * shaded with the {@link ShadeTable}, which gives the same colors.
+ *
+ * @author Pavel Vavruska
+ */
+public class VectorColumnShader implements ColumnShader {
+
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+
+    @Override
+    public void shade(int[] texels, int offset, int count, int level, boolean transparent, int[] out) {
+        IntVector zero = IntVector.zero(SPECIES);
+        int texel = 0;
+        for (int bound = SPECIES.loopBound(count); texel < bound; texel += SPECIES.length()) {
+            IntVector color = IntVector.fromArray(SPECIES, texels, offset + texel);
+            IntVector green = color.lanewise(VectorOperators.LSHR, 8).and(0xFF);
+            IntVector shaded = color.lanewise(VectorOperators.LSHR, 16).and(0xFF).sub(level).max(0)
+                    .lanewise(VectorOperators.LSHL, 16)
+                    .or(green.sub(level).max(0).lanewise(VectorOperators.LSHL, 8))
+                    .or(color.and(0xFF).sub(level).max(0))
+                    .or(0xFF000000);
+            if (transparent) {
+                VectorMask<Integer> opaque = green.compare(VectorOperators.GE, 1);
+                shaded = zero.blend(shaded, opaque);
+            }
+            shaded.intoArray(out, texel);
+        }
+
+        int[] table = ShadeTable.forLevel(level);
+        for (; texel < count; texel++) {
+            int color = texels[offset + texel];
+            if (transparent && ((color >> 8) & 0xFF) < 1) {
+                out[texel] = 0;
+            } else {
+                out[texel] = ShadeTable.shade(color, table);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Vector API, " + SPECIES.length() + " lanes";
+    }
+}